@@ -0,0 +1,66 @@
+package com.parkinglot.benchmark;
+
+import com.parkinglot.ParkingGarageApplication;
+import com.parkinglot.dto.GarageLayoutRequest;
+import com.parkinglot.dto.GarageLayoutRequest.FloorLayout;
+import com.parkinglot.service.GarageProvisioningService;
+import com.parkinglot.service.GarageService;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Boots the application against a private in-memory H2 database sized to the requested garage.
+ */
+final class BenchmarkContext {
+
+    // Spots per floor for generated garages; DataInitializer already provides floors 1-3 (75 spots)
+    private static final int SPOTS_PER_FLOOR = 1000;
+    private static final int DEFAULT_SPOTS = 75;
+
+    private BenchmarkContext() {
+    }
+
+    /**
+     * @param extraArgs additional "name=value" properties; they replace the defaults below
+     */
+    static ConfigurableApplicationContext start(int spots, String... extraArgs) {
+        Map<String, String> properties = new LinkedHashMap<>();
+        properties.put("spring.datasource.url", "jdbc:h2:mem:bench-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        properties.put("spring.jpa.show-sql", "false");
+        properties.put("spring.jpa.properties.hibernate.format_sql", "false");
+        properties.put("logging.level.root", "WARN");
+        properties.put("spring.main.banner-mode", "off");
+        for (String arg : extraArgs) {
+            String[] property = arg.split("=", 2);
+            properties.put(property[0], property[1]);
+        }
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(ParkingGarageApplication.class)
+                .web(WebApplicationType.NONE)
+                // Passed as arguments so they override application.properties
+                .run(properties.entrySet().stream()
+                        .map(property -> "--" + property.getKey() + "=" + property.getValue())
+                        .toArray(String[]::new));
+        addSpots(context, spots - DEFAULT_SPOTS);
+        return context;
+    }
+
+    private static void addSpots(ConfigurableApplicationContext context, int count) {
+        if (count <= 0) {
+            return;
+        }
+        List<FloorLayout> floors = new ArrayList<>();
+        for (int floor = 4; count > 0; floor++) {
+            floors.add(new FloorLayout(floor, Math.min(count, SPOTS_PER_FLOOR)));
+            count -= SPOTS_PER_FLOOR;
+        }
+        Long garageId = context.getBean(GarageService.class).resolveGarageId(null);
+        context.getBean(GarageProvisioningService.class).provision(garageId, new GarageLayoutRequest(floors));
+    }
+}
@@ -0,0 +1,82 @@
+package com.parkinglot.benchmark;
+
+import com.parkinglot.dto.RerateReport;
+import com.parkinglot.service.BillingService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Session pricing: a single session against the compiled tariff, and re-rating a month of archived sessions.
+ *
+ * Example: mvn -Pbenchmark test-compile exec:exec
+ *            -Dbenchmark.args="BillingBenchmark.rerateMonth -p sessions=1000000"
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+public class BillingBenchmark {
+
+    private static final int MONTH = 202601;
+    private static final int BATCH_SIZE = 10_000;
+
+    @Param({"100000", "1000000"})
+    public int sessions;
+
+    ConfigurableApplicationContext context;
+    BillingService billingService;
+    LocalDateTime monthStart = LocalDateTime.of(2026, 1, 1, 0, 0);
+
+    @Setup(Level.Trial)
+    public void seed() {
+        context = BenchmarkContext.start(75, "parking.archive.interval-ms=86400000");
+        billingService = context.getBean(BillingService.class);
+
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        String insert = "insert into parking_session_history (id, archive_month, garage_id, user_id, car_id, license_plate, " +
+                "parking_spot_id, floor, spot_number, start_time, end_time) values (?, ?, 1, 1, 1, 'BENCH01', 1, ?, 1, ?, ?)";
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 1; i <= sessions; i++) {
+            // Up to two days long, starting anywhere in the month
+            LocalDateTime start = monthStart.plusMinutes(random.nextInt(28 * 24 * 60));
+            LocalDateTime end = start.plusMinutes(1 + random.nextInt(2 * 24 * 60));
+            batch.add(new Object[]{i, MONTH, 1 + random.nextInt(3), Timestamp.valueOf(start), Timestamp.valueOf(end)});
+            if (batch.size() == BATCH_SIZE || i == sessions) {
+                jdbcTemplate.batchUpdate(insert, batch);
+                batch.clear();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public long priceSession() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        LocalDateTime start = monthStart.plusMinutes(random.nextInt(28 * 24 * 60));
+        return billingService.price(1 + random.nextInt(3), start, start.plusMinutes(1 + random.nextInt(2 * 24 * 60)));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public RerateReport rerateMonth() {
+        return billingService.rerate(MONTH, null);
+    }
+}
@@ -0,0 +1,130 @@
+package com.parkinglot.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Closed-loop HTTP load against a running backend: N concurrent clients (one virtual thread each) send
+ * a read-mostly mix of JDBC-backed requests for a fixed time, then throughput and latency percentiles
+ * are printed. Run it once against the server started normally and once with
+ * --spring.threads.virtual.enabled=true to compare platform and virtual request threads.
+ *
+ * Arguments: [baseUrl] [clients] [seconds] [users], default http://localhost:8080 5000 60 50
+ */
+public class HttpLoadTest {
+
+    private static final Pattern TOKEN = Pattern.compile("\"token\"\\s*:\\s*\"([^\"]+)\"");
+
+    public static void main(String[] args) throws Exception {
+        String baseUrl = args.length > 0 ? args[0] : "http://localhost:8080";
+        int clients = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 60;
+        int users = args.length > 3 ? Integer.parseInt(args[3]) : 50;
+
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        HttpClient client = HttpClient.newBuilder()
+                .executor(executor)
+                .connectTimeout(Duration.ofSeconds(30))
+                .build();
+
+        // Few users shared by all clients: registering one per client would only measure BCrypt
+        List<String> tokens = new ArrayList<>();
+        long runId = System.currentTimeMillis();
+        for (int i = 0; i < users; i++) {
+            String body = "{\"firstName\":\"Load\",\"lastName\":\"Test\",\"email\":\"load" + runId + "-" + i
+                    + "@bench.local\",\"password\":\"password123\"}";
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/register"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body))
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            Matcher matcher = TOKEN.matcher(response.body());
+            if (!matcher.find()) {
+                throw new IllegalStateException("Registration failed: " + response.statusCode() + " " + response.body());
+            }
+            tokens.add(matcher.group(1));
+        }
+
+        String[] paths = {
+                "/api/parking/active",
+                "/api/cars",
+                "/api/spots/available/page?size=20",
+                "/api/parking/history?size=20"
+        };
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        AtomicLong errors = new AtomicLong();
+        long[][] latencies = new long[clients][];
+        int[] counts = new int[clients];
+
+        long started = System.nanoTime();
+        List<Thread> threads = new ArrayList<>(clients);
+        for (int c = 0; c < clients; c++) {
+            int clientIndex = c;
+            threads.add(Thread.ofVirtual().start(() -> {
+                long[] own = new long[1024];
+                int n = 0;
+                String token = tokens.get(clientIndex % tokens.size());
+                while (System.nanoTime() < deadline) {
+                    String path = paths[ThreadLocalRandom.current().nextInt(paths.length)];
+                    HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                            .header("Authorization", "Bearer " + token)
+                            .timeout(Duration.ofSeconds(60))
+                            .GET()
+                            .build();
+                    long start = System.nanoTime();
+                    try {
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        if (response.statusCode() != 200) {
+                            errors.incrementAndGet();
+                        }
+                    } catch (Exception e) {
+                        errors.incrementAndGet();
+                    }
+                    if (n == own.length) {
+                        own = Arrays.copyOf(own, n * 2);
+                    }
+                    own[n++] = System.nanoTime() - start;
+                }
+                latencies[clientIndex] = own;
+                counts[clientIndex] = n;
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        double elapsed = (System.nanoTime() - started) / 1e9;
+
+        int total = Arrays.stream(counts).sum();
+        long[] all = new long[total];
+        int offset = 0;
+        for (int c = 0; c < clients; c++) {
+            System.arraycopy(latencies[c], 0, all, offset, counts[c]);
+            offset += counts[c];
+        }
+        Arrays.sort(all);
+        System.out.printf("clients=%d duration=%.1fs requests=%d errors=%d throughput=%.0f req/s%n",
+                clients, elapsed, total, errors.get(), total / elapsed);
+        System.out.printf("latency ms: p50=%.1f p90=%.1f p99=%.1f max=%.1f%n",
+                percentile(all, 0.50), percentile(all, 0.90), percentile(all, 0.99), all.length > 0 ? all[all.length - 1] / 1e6 : 0);
+        executor.shutdownNow();
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))] / 1e6;
+    }
+}
@@ -0,0 +1,44 @@
+package com.parkinglot.benchmark;
+
+import com.parkinglot.security.JwtUtil;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token validation as done by JwtAuthenticationFilter on every authenticated request.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtBenchmark {
+
+    private static final String EMAIL = "driver@bench.local";
+
+    JwtUtil jwtUtil;
+    String token;
+    UserDetails userDetails;
+
+    @Setup(Level.Trial)
+    public void createToken() {
+        jwtUtil = new JwtUtil();
+        ReflectionTestUtils.setField(jwtUtil, "secret",
+                "mySecretKeyForJWTTokenGenerationThatIsLongEnoughToMeetRequirements");
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 86_400_000L);
+        jwtUtil.init();
+        token = jwtUtil.generateToken(1L, EMAIL, 0);
+        userDetails = new User(EMAIL, "unused", List.of());
+    }
+
+    @Benchmark
+    public Boolean validateToken() {
+        return jwtUtil.validateToken(token, userDetails);
+    }
+}
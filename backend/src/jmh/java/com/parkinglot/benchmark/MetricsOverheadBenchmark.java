@@ -0,0 +1,78 @@
+package com.parkinglot.benchmark;
+
+import com.parkinglot.jdbc.SqlTrace;
+import com.parkinglot.jdbc.TracingDataSource;
+import com.parkinglot.service.LatencyMetrics;
+import io.micrometer.prometheus.PrometheusConfig;
+import io.micrometer.prometheus.PrometheusMeterRegistry;
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What the always-on instrumentation adds to a call: a histogram timer around a trivial operation, and
+ * statement tracing around a cheap in-memory query, each next to the same work without it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetricsOverheadBenchmark {
+
+    LatencyMetrics latencyMetrics;
+    Connection plainConnection;
+    Connection countedConnection;
+    long value;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        latencyMetrics = new LatencyMetrics(new PrometheusMeterRegistry(PrometheusConfig.DEFAULT));
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:metrics;DB_CLOSE_DELAY=-1");
+        plainConnection = h2.getConnection();
+        countedConnection = new TracingDataSource(h2).getConnection();
+        SqlTrace.start(Long.MAX_VALUE);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        SqlTrace.stop();
+        plainConnection.close();
+        countedConnection.close();
+    }
+
+    @Benchmark
+    public long operation() {
+        return ++value;
+    }
+
+    @Benchmark
+    public long timedOperation() {
+        return latencyMetrics.time("bench.operation", () -> ++value);
+    }
+
+    @Benchmark
+    public int query() throws SQLException {
+        return selectOne(plainConnection);
+    }
+
+    @Benchmark
+    public int tracedQuery() throws SQLException {
+        return selectOne(countedConnection);
+    }
+
+    private static int selectOne(Connection connection) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement("select 1");
+             ResultSet rs = statement.executeQuery()) {
+            rs.next();
+            return rs.getInt(1);
+        }
+    }
+}
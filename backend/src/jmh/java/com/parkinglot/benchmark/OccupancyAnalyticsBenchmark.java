@@ -0,0 +1,114 @@
+package com.parkinglot.benchmark;
+
+import com.parkinglot.dto.AnalyticsBackfillReport;
+import com.parkinglot.dto.FloorAnalyticsDTO;
+import com.parkinglot.dto.OccupancyPointDTO;
+import com.parkinglot.service.GarageService;
+import com.parkinglot.service.OccupancyAnalytics;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Dashboard queries over a year of archived sessions: per-floor dwell/turnover and a year-long hourly
+ * curve from the in-memory buckets, against the equivalent GROUP BY over parking_session_history; plus
+ * the parallel backfill that builds the buckets.
+ *
+ * Example: mvn -Pbenchmark test-compile exec:exec
+ *            -Dbenchmark.args="OccupancyAnalyticsBenchmark -p sessions=1000000"
+ */
+@State(Scope.Benchmark)
+@Fork(1)
+public class OccupancyAnalyticsBenchmark {
+
+    private static final int BATCH_SIZE = 10_000;
+
+    @Param({"100000", "1000000"})
+    public int sessions;
+
+    ConfigurableApplicationContext context;
+    OccupancyAnalytics occupancyAnalytics;
+    JdbcTemplate jdbcTemplate;
+    Long garageId;
+    LocalDateTime to = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+    LocalDateTime from = to.minusDays(365);
+
+    @Setup(Level.Trial)
+    public void seed() {
+        context = BenchmarkContext.start(75, "parking.archive.interval-ms=86400000", "analytics.backfill.on-startup=false");
+        occupancyAnalytics = context.getBean(OccupancyAnalytics.class);
+        garageId = context.getBean(GarageService.class).resolveGarageId(null);
+
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        String insert = "insert into parking_session_history (id, archive_month, garage_id, user_id, car_id, license_plate, " +
+                "parking_spot_id, floor, spot_number, start_time, end_time) values (?, ?, ?, 1, 1, 'BENCH01', 1, ?, 1, ?, ?)";
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 1; i <= sessions; i++) {
+            // Up to ten hours long, ending anywhere in the last year
+            LocalDateTime end = to.minusMinutes(random.nextInt(365 * 24 * 60));
+            LocalDateTime start = end.minusMinutes(1 + random.nextInt(10 * 60));
+            batch.add(new Object[]{i, end.getYear() * 100 + end.getMonthValue(), garageId, 1 + random.nextInt(3),
+                    Timestamp.valueOf(start), Timestamp.valueOf(end)});
+            if (batch.size() == BATCH_SIZE || i == sessions) {
+                jdbcTemplate.batchUpdate(insert, batch);
+                batch.clear();
+            }
+        }
+        occupancyAnalytics.backfill();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public AnalyticsBackfillReport backfill() {
+        return occupancyAnalytics.backfill();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public List<FloorAnalyticsDTO> yearFloorSummary() {
+        return occupancyAnalytics.getFloorSummary(garageId, from, to);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public List<OccupancyPointDTO> yearHourlyCurve() {
+        return occupancyAnalytics.getOccupancyCurve(garageId, null, from, to);
+    }
+
+    // What yearFloorSummary replaces: sessions and average dwell per floor straight from the history table.
+    // The upper bound varies so H2 cannot hand back the previous result
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 2, time = 2)
+    @Measurement(iterations = 3, time = 2)
+    public List<Map<String, Object>> yearFloorSummaryGroupBy() {
+        return jdbcTemplate.queryForList("select floor, count(*), avg(datediff('SECOND', start_time, end_time)) " +
+                "from parking_session_history where garage_id = ? and end_time >= ? and end_time < ? group by floor",
+                garageId, Timestamp.valueOf(from), Timestamp.valueOf(to.minusSeconds(ThreadLocalRandom.current().nextInt(3600))));
+    }
+}
@@ -0,0 +1,118 @@
+package com.parkinglot.benchmark;
+
+import com.parkinglot.dto.ParkingRequest;
+import com.parkinglot.dto.ParkingSessionDTO;
+import com.parkinglot.dto.ParkingSpotDTO;
+import com.parkinglot.model.Car;
+import com.parkinglot.model.User;
+import com.parkinglot.repository.CarRepository;
+import com.parkinglot.repository.UserRepository;
+import com.parkinglot.service.GarageService;
+import com.parkinglot.service.ParkingService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Park/leave and availability listing against an in-memory H2 garage.
+ *
+ * Example: mvn -Pbenchmark test-compile exec:exec
+ *            -Dbenchmark.args="ParkingServiceBenchmark -p spots=10000 -t 8 -prof gc"
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParkingServiceBenchmark {
+
+    @Param({"75", "10000", "1000000"})
+    public int spots;
+
+    ConfigurableApplicationContext context;
+    ParkingService parkingService;
+    Long garageId;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = BenchmarkContext.start(spots);
+        parkingService = context.getBean(ParkingService.class);
+        garageId = context.getBean(GarageService.class).resolveGarageId(null);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    /**
+     * One driver per benchmark thread, each with its own user and car.
+     */
+    public abstract static class Driver {
+        Long userId;
+        ParkingRequest request;
+        ParkingSessionDTO session;
+
+        @Setup(Level.Trial)
+        public void register(ParkingServiceBenchmark benchmark) {
+            User user = new User();
+            user.setFirstName("Bench");
+            user.setLastName("Driver");
+            user.setEmail(UUID.randomUUID() + "@bench.local");
+            user.setPassword("unused");
+            user = benchmark.context.getBean(UserRepository.class).save(user);
+
+            Car car = new Car();
+            car.setMake("Make");
+            car.setModel("Model");
+            car.setLicensePlate("BENCH01");
+            car.setUser(user);
+            car = benchmark.context.getBean(CarRepository.class).save(car);
+
+            userId = user.getId();
+            request = new ParkingRequest(car.getId(), null, null, null);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ParkedDriver extends Driver {
+        @Setup(Level.Invocation)
+        public void park(ParkingServiceBenchmark benchmark) {
+            session = benchmark.parkingService.parkCar(userId, benchmark.garageId, request);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ArrivingDriver extends Driver {
+        @TearDown(Level.Invocation)
+        public void leave(ParkingServiceBenchmark benchmark) {
+            benchmark.parkingService.leaveParkingSpot(userId, session.getParkingSessionId());
+        }
+    }
+
+    @Benchmark
+    public ParkingSessionDTO parkCar(ArrivingDriver driver) {
+        driver.session = parkingService.parkCar(driver.userId, garageId, driver.request);
+        return driver.session;
+    }
+
+    @Benchmark
+    public Long leaveParkingSpot(ParkedDriver driver) {
+        parkingService.leaveParkingSpot(driver.userId, driver.session.getParkingSessionId());
+        return driver.session.getParkingSessionId();
+    }
+
+    @Benchmark
+    public List<ParkingSpotDTO> getAvailableSpots() {
+        return parkingService.getAvailableSpots(garageId, null);
+    }
+
+    @Benchmark
+    public List<ParkingSpotDTO> getAvailableSpotsOnFloor() {
+        return parkingService.getAvailableSpots(garageId, 1);
+    }
+}
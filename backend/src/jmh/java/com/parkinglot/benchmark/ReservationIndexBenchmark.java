@@ -0,0 +1,63 @@
+package com.parkinglot.benchmark;
+
+import com.parkinglot.service.ReservationIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Reservation conflict checks against a loaded index: the walk-in check done for every auto-assigned
+ * candidate spot, and booking attempts at random windows (most of which conflict).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReservationIndexBenchmark {
+
+    @Param({"100000", "1000000"})
+    int reservations;
+
+    @Param({"2000"})
+    int spots;
+
+    ReservationIndex index;
+    LocalDateTime origin;
+
+    @Setup(Level.Trial)
+    public void load() {
+        index = new ReservationIndex(null, null);
+        origin = LocalDateTime.now().withNano(0);
+        // Back-to-back two-hour bookings with a one-hour gap, spread evenly over the spots
+        int perSpot = reservations / spots;
+        for (long spotId = 1; spotId <= spots; spotId++) {
+            for (int i = 0; i < perSpot; i++) {
+                LocalDateTime start = origin.plusHours(3L * i);
+                index.tryBook(spotId, start, start.plusHours(2));
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean isHeld() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return index.isHeld(1 + random.nextInt(spots), origin.plusMinutes(random.nextInt(60 * 24 * 365)));
+    }
+
+    @Benchmark
+    public boolean tryBookAndRelease() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long spotId = 1 + random.nextInt(spots);
+        LocalDateTime start = origin.plusMinutes(random.nextInt(60 * 24 * 365));
+        LocalDateTime end = start.plusMinutes(30);
+        if (index.tryBook(spotId, start, end)) {
+            index.remove(spotId, start, end);
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,130 @@
+package com.parkinglot.benchmark;
+
+import com.parkinglot.dto.ParkingSessionDTO;
+import com.parkinglot.dto.ParkingSpotDTO;
+import com.parkinglot.model.ParkingSession;
+import com.parkinglot.repository.ParkingSessionRepository;
+import com.parkinglot.repository.ParkingSpotRepository;
+import com.parkinglot.service.GarageService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Active-session and free-spot lookups with a large number of closed sessions left in parking_sessions
+ * (e.g. before the archiver has caught up). Closed sessions are spread over USERS users and cars, each of
+ * which also has one active session, so every lookup has to find one live row among many dead ones.
+ *
+ * Example: mvn -Pbenchmark test-compile exec:exec
+ *            -Dbenchmark.args="SessionLookupBenchmark -p historicalSessions=10000000"
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10, time = 3)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SessionLookupBenchmark {
+
+    private static final int USERS = 1000;
+    private static final int BATCH_SIZE = 10_000;
+
+    @Param({"100000", "10000000"})
+    public int historicalSessions;
+
+    Path databaseDir;
+    ConfigurableApplicationContext context;
+    ParkingSessionRepository parkingSessionRepository;
+    ParkingSpotRepository parkingSpotRepository;
+    Long garageId;
+    long[] userIds = new long[USERS];
+    long[] carIds = new long[USERS];
+    long[] activeSessionIds = new long[USERS];
+
+    @Setup(Level.Trial)
+    public void seed() throws IOException {
+        // On disk: ten million sessions do not fit an in-memory database on a small heap
+        databaseDir = Files.createTempDirectory("parking-bench");
+        context = BenchmarkContext.start(USERS + 75,
+                "spring.datasource.url=jdbc:h2:file:" + databaseDir.resolve("db") + ";DB_CLOSE_ON_EXIT=FALSE",
+                // Keep the closed sessions in the live table for the whole run
+                "parking.archive.interval-ms=86400000");
+        parkingSessionRepository = context.getBean(ParkingSessionRepository.class);
+        parkingSpotRepository = context.getBean(ParkingSpotRepository.class);
+        garageId = context.getBean(GarageService.class).resolveGarageId(null);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        List<Long> spotIds = jdbcTemplate.queryForList(
+                "select id from parking_spots order by id limit ?", Long.class, USERS);
+        for (int i = 0; i < USERS; i++) {
+            jdbcTemplate.update("insert into users (first_name, last_name, email, password) values ('Bench', 'Driver', ?, 'unused')",
+                    "lookup" + i + "@bench.local");
+            userIds[i] = jdbcTemplate.queryForObject("select max(id) from users", Long.class);
+            jdbcTemplate.update("insert into cars (license_plate, make, model, user_id) values ('BENCH01', 'Make', 'Model', ?)",
+                    userIds[i]);
+            carIds[i] = jdbcTemplate.queryForObject("select max(id) from cars", Long.class);
+        }
+
+        String insert = "insert into parking_sessions (id, garage_id, user_id, car_id, parking_spot_id, start_time, end_time, " +
+                "active, active_car_id, active_spot_id) values (next value for parking_sessions_seq, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+        Timestamp start = Timestamp.valueOf(LocalDateTime.now().minusYears(1));
+        List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < historicalSessions; i++) {
+            int owner = i % USERS;
+            batch.add(new Object[]{garageId, userIds[owner], carIds[owner], spotIds.get(owner), start, start,
+                    false, null, null});
+            if (batch.size() == BATCH_SIZE || i == historicalSessions - 1) {
+                jdbcTemplate.batchUpdate(insert, batch);
+                batch.clear();
+            }
+        }
+        for (int i = 0; i < USERS; i++) {
+            jdbcTemplate.update(insert, garageId, userIds[i], carIds[i], spotIds.get(i), start, null,
+                    true, carIds[i], spotIds.get(i));
+            jdbcTemplate.update("update parking_spots set occupied = true where id = ?", spotIds.get(i));
+            activeSessionIds[i] = jdbcTemplate.queryForObject("select max(id) from parking_sessions", Long.class);
+        }
+        jdbcTemplate.execute("analyze");
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() throws IOException {
+        context.close();
+        FileSystemUtils.deleteRecursively(databaseDir);
+    }
+
+    // The check done on every park
+    @Benchmark
+    public boolean carAlreadyParked() {
+        return parkingSessionRepository.existsByActiveCarId(carIds[ThreadLocalRandom.current().nextInt(USERS)]);
+    }
+
+    // The lookup done on every leave
+    @Benchmark
+    public Optional<ParkingSession> sessionForLeave() {
+        int i = ThreadLocalRandom.current().nextInt(USERS);
+        return parkingSessionRepository.findByIdAndUserId(activeSessionIds[i], userIds[i]);
+    }
+
+    @Benchmark
+    public List<ParkingSessionDTO> activeSessions() {
+        return parkingSessionRepository.findActiveSessionDTOs(userIds[ThreadLocalRandom.current().nextInt(USERS)]);
+    }
+
+    @Benchmark
+    public List<ParkingSpotDTO> availableSpotsOnFloor() {
+        return parkingSpotRepository.findAvailable(garageId, 4);
+    }
+}
@@ -1,50 +1,65 @@
 package com.parkinglot.config;
 
-import com.parkinglot.model.ParkingSpot;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.parkinglot.dto.GarageLayoutRequest;
+import com.parkinglot.dto.GarageLayoutRequest.FloorLayout;
+import com.parkinglot.dto.ProvisioningReport;
+import com.parkinglot.model.Garage;
 import com.parkinglot.repository.ParkingSpotRepository;
+import com.parkinglot.service.GarageProvisioningService;
+import com.parkinglot.service.GarageService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
 import org.springframework.stereotype.Component;
 
+import java.io.InputStream;
+import java.util.List;
+
 @Component
 @RequiredArgsConstructor
 public class DataInitializer implements CommandLineRunner {
     
     private final ParkingSpotRepository parkingSpotRepository;
+    private final GarageProvisioningService garageProvisioningService;
+    private final GarageService garageService;
+    private final ResourceLoader resourceLoader;
+    private final ObjectMapper objectMapper;
+    
+    // Optional JSON layout ({"floors":[{"floor":1,"spots":20},...]}), e.g. file:/etc/garage/layout.json
+    @Value("${garage.layout-file:}")
+    private String layoutFile;
     
     @Override
     public void run(String... args) throws Exception {
+        Garage garage = garageService.getOrCreateDefaultGarage();
+        
         // Check if parking spots already exist
-        if (parkingSpotRepository.count() == 0) {
-            // Create parking spots for 3 floors with varying number of spots per floor
-            initializeParkingSpots();
+        if (parkingSpotRepository.countByGarageId(garage.getId()) == 0) {
+            GarageLayoutRequest layout = layoutFile.isBlank() ? defaultLayout() : readLayout(layoutFile);
+            ProvisioningReport report = garageProvisioningService.provision(garage.getId(), layout);
+            
+            System.out.println("Initialized parking garage with " + report.getSpotsCreated() + " spots across "
+                    + report.getFloors() + " floors in " + report.getDurationMs() + " ms ("
+                    + report.getSpotsPerSecond() + " spots/sec)");
         }
     }
     
-    private void initializeParkingSpots() {
-        // Floor 1: spots 1-20
-        for (int i = 1; i <= 20; i++) {
-            createParkingSpot(1, i);
-        }
-        
-        // Floor 2: spots 1-25
-        for (int i = 1; i <= 25; i++) {
-            createParkingSpot(2, i);
-        }
-        
-        // Floor 3: spots 1-30
-        for (int i = 1; i <= 30; i++) {
-            createParkingSpot(3, i);
-        }
-        
-        System.out.println("Initialized parking garage with 75 spots across 3 floors");
+    private GarageLayoutRequest defaultLayout() {
+        // 3 floors with varying number of spots per floor
+        return new GarageLayoutRequest(List.of(
+                new FloorLayout(1, 20),
+                new FloorLayout(2, 25),
+                new FloorLayout(3, 30)
+        ));
     }
     
-    private void createParkingSpot(int floor, int spotNumber) {
-        ParkingSpot spot = new ParkingSpot();
-        spot.setFloor(floor);
-        spot.setSpotNumber(spotNumber);
-        spot.setOccupied(false);
-        parkingSpotRepository.save(spot);
+    private GarageLayoutRequest readLayout(String location) throws Exception {
+        Resource resource = resourceLoader.getResource(location);
+        try (InputStream in = resource.getInputStream()) {
+            return objectMapper.readValue(in, GarageLayoutRequest.class);
+        }
     }
 }
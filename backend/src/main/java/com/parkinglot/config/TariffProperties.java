@@ -0,0 +1,40 @@
+package com.parkinglot.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parking tariff as configured under parking.tariff.*. Compiled into a Tariff by BillingService at startup.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "parking.tariff")
+public class TariffProperties {
+    
+    // Rate for any minute not covered by a band
+    private long defaultRatePerHourCents = 200;
+    
+    // Time-of-day bands, end exclusive; a band ending before it starts wraps past midnight, and one
+    // ending where it starts covers the whole day
+    private List<Band> bands = new ArrayList<>();
+    
+    // Floor -> percentage of the band rate charged on that floor (100 when not listed)
+    private Map<Integer, Integer> floorRatePercent = new HashMap<>();
+    
+    // Most a session is charged per calendar day; 0 disables the cap
+    private long dailyCapCents = 0;
+    
+    @Data
+    public static class Band {
+        private LocalTime from;
+        private LocalTime to;
+        private long ratePerHourCents;
+    }
+}
@@ -0,0 +1,27 @@
+package com.parkinglot.config;
+
+import com.parkinglot.jdbc.TracingDataSource;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+@Configuration
+public class TracingConfig {
+    
+    // Wraps the pool so statements can be counted and timed per request; Hikari's own pool metrics
+    // still see the pool through DelegatingDataSource's unwrap
+    @Bean
+    public static BeanPostProcessor tracingDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof TracingDataSource)) {
+                    return new TracingDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+}
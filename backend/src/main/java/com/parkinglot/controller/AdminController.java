@@ -0,0 +1,83 @@
+package com.parkinglot.controller;
+
+import com.parkinglot.dto.ErrorResponse;
+import com.parkinglot.dto.GarageDTO;
+import com.parkinglot.dto.GarageLayoutRequest;
+import com.parkinglot.dto.GarageRequest;
+import com.parkinglot.dto.ProvisioningReport;
+import com.parkinglot.dto.RequestTraceDTO;
+import com.parkinglot.dto.RerateReport;
+import com.parkinglot.service.BillingService;
+import com.parkinglot.service.GarageNotFoundException;
+import com.parkinglot.service.GarageProvisioningService;
+import com.parkinglot.service.GarageService;
+import com.parkinglot.tracing.TraceRecorder;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/admin")
+@RequiredArgsConstructor
+public class AdminController {
+    
+    private final GarageProvisioningService garageProvisioningService;
+    private final GarageService garageService;
+    private final BillingService billingService;
+    private final TraceRecorder traceRecorder;
+    
+    @PostMapping("/garages")
+    public ResponseEntity<?> createGarage(@Valid @RequestBody GarageRequest request) {
+        try {
+            GarageDTO garage = garageService.createGarage(request);
+            return ResponseEntity.status(HttpStatus.CREATED).body(garage);
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new ErrorResponse(e.getMessage(), "Unable to create garage"));
+        }
+    }
+    
+    // /garage/layout provisions the default garage
+    @PostMapping({"/garage/layout", "/garages/{garageId}/layout"})
+    public ResponseEntity<?> provisionLayout(
+            @PathVariable(required = false) Long garageId,
+            @Valid @RequestBody GarageLayoutRequest request) {
+        try {
+            ProvisioningReport report = garageProvisioningService.provision(garageService.resolveGarageId(garageId), request);
+            return ResponseEntity.status(HttpStatus.CREATED).body(report);
+        } catch (RuntimeException e) {
+            HttpStatus status = e instanceof GarageNotFoundException ? HttpStatus.NOT_FOUND : HttpStatus.BAD_REQUEST;
+            return ResponseEntity.status(status)
+                    .body(new ErrorResponse(e.getMessage(), "Unable to provision garage layout"));
+        }
+    }
+    
+    // Reprices a month (yyyymm) of archived sessions with the current tariff
+    @PostMapping("/billing/rerate")
+    public ResponseEntity<?> rerate(@RequestParam int month, @RequestParam(required = false) Long garageId) {
+        if (month % 100 < 1 || month % 100 > 12) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ErrorResponse("INVALID_MONTH", "Month must be given as yyyymm"));
+        }
+        try {
+            RerateReport report = billingService.rerate(month, garageId);
+            return ResponseEntity.ok(report);
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(new ErrorResponse(e.getMessage(), "Unable to re-rate sessions"));
+        }
+    }
+    
+    // Recent sampled and slow request traces, newest first; uri matches part of the endpoint pattern
+    @GetMapping("/traces")
+    public ResponseEntity<List<RequestTraceDTO>> getTraces(
+            @RequestParam(defaultValue = "100") int limit,
+            @RequestParam(defaultValue = "0") double minDurationMs,
+            @RequestParam(required = false) String uri) {
+        return ResponseEntity.ok(traceRecorder.recent(Math.max(1, Math.min(limit, 1000)), minDurationMs, uri));
+    }
+}
@@ -0,0 +1,95 @@
+package com.parkinglot.controller;
+
+import com.parkinglot.dto.AnalyticsBackfillReport;
+import com.parkinglot.dto.ErrorResponse;
+import com.parkinglot.service.GarageNotFoundException;
+import com.parkinglot.service.GarageService;
+import com.parkinglot.service.OccupancyAnalytics;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.function.Supplier;
+
+/**
+ * Occupancy dashboards for operators, served from in-memory hourly buckets. Ranges default to the
+ * last week (curve) or the last four weeks (floors, heatmap), up to the current hour.
+ */
+@RestController
+@RequestMapping("/api/admin/analytics")
+@RequiredArgsConstructor
+public class AnalyticsController {
+    
+    private final OccupancyAnalytics occupancyAnalytics;
+    private final GarageService garageService;
+    
+    @GetMapping("/occupancy")
+    public ResponseEntity<?> getOccupancyCurve(
+            @RequestParam(required = false) Long garageId,
+            @RequestParam(required = false) Integer floor,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return query(() -> {
+            LocalDateTime end = endOf(to);
+            return occupancyAnalytics.getOccupancyCurve(garageService.resolveGarageId(garageId), floor,
+                    from != null ? from : end.minusDays(7), end);
+        });
+    }
+    
+    @GetMapping("/floors")
+    public ResponseEntity<?> getFloorSummary(
+            @RequestParam(required = false) Long garageId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return query(() -> {
+            LocalDateTime end = endOf(to);
+            return occupancyAnalytics.getFloorSummary(garageService.resolveGarageId(garageId),
+                    from != null ? from : end.minusWeeks(4), end);
+        });
+    }
+    
+    @GetMapping("/heatmap")
+    public ResponseEntity<?> getHeatmap(
+            @RequestParam(required = false) Long garageId,
+            @RequestParam(required = false) Integer floor,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return query(() -> {
+            LocalDateTime end = endOf(to);
+            return occupancyAnalytics.getHeatmap(garageService.resolveGarageId(garageId), floor,
+                    from != null ? from : end.minusWeeks(4), end);
+        });
+    }
+    
+    // Rebuilds the buckets from session history, e.g. after sessions were imported or re-archived;
+    // 409 while another backfill, such as the one at startup, is still running
+    @PostMapping("/backfill")
+    public ResponseEntity<?> backfill() {
+        try {
+            AnalyticsBackfillReport report = occupancyAnalytics.backfill();
+            return ResponseEntity.ok(report);
+        } catch (RuntimeException e) {
+            HttpStatus status = "BACKFILL_RUNNING".equals(e.getMessage()) ? HttpStatus.CONFLICT : HttpStatus.INTERNAL_SERVER_ERROR;
+            return ResponseEntity.status(status)
+                    .body(new ErrorResponse(e.getMessage(), "Unable to backfill occupancy analytics"));
+        }
+    }
+    
+    private static LocalDateTime endOf(LocalDateTime to) {
+        return to != null ? to : LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).plusHours(1);
+    }
+    
+    private ResponseEntity<?> query(Supplier<Object> query) {
+        try {
+            return ResponseEntity.ok(query.get());
+        } catch (RuntimeException e) {
+            HttpStatus status = e instanceof GarageNotFoundException ? HttpStatus.NOT_FOUND : HttpStatus.BAD_REQUEST;
+            return ResponseEntity.status(status)
+                    .body(new ErrorResponse(e.getMessage(), "Range must be positive and within the retention period"));
+        }
+    }
+}
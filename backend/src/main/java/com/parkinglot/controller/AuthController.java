@@ -1,12 +1,15 @@
 package com.parkinglot.controller;
 
 import com.parkinglot.dto.*;
+import com.parkinglot.security.AuthenticatedUser;
+import com.parkinglot.security.BoundedPasswordEncoder;
 import com.parkinglot.service.AuthService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 @RestController
@@ -22,6 +25,9 @@ public class AuthController {
             AuthResponse response = authService.register(request);
             return ResponseEntity.status(HttpStatus.CREATED).body(response);
         } catch (RuntimeException e) {
+            if (BoundedPasswordEncoder.BUSY.equals(e.getMessage())) {
+                return authBusy();
+            }
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
                     .body(new ErrorResponse(e.getMessage(), "Registration failed"));
         }
@@ -33,15 +39,34 @@ public class AuthController {
             AuthResponse response = authService.login(request);
             return ResponseEntity.ok(response);
         } catch (RuntimeException e) {
+            if (BoundedPasswordEncoder.BUSY.equals(e.getMessage())) {
+                return authBusy();
+            }
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
                     .body(new ErrorResponse("INVALID_CREDENTIALS", "Invalid email or password"));
         }
     }
     
     @GetMapping("/me")
-    public ResponseEntity<UserDTO> getCurrentUser(Authentication authentication) {
-        String email = authentication.getName();
-        UserDTO user = authService.getCurrentUser(email);
+    public ResponseEntity<UserDTO> getCurrentUser(@AuthenticationPrincipal AuthenticatedUser principal) {
+        UserDTO user = authService.getCurrentUser(principal.getId());
         return ResponseEntity.ok(user);
     }
+    
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(@AuthenticationPrincipal AuthenticatedUser principal) {
+        if (principal == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                    .body(new ErrorResponse("UNAUTHORIZED", "Authentication required"));
+        }
+        authService.logout(principal.getId());
+        return ResponseEntity.noContent().build();
+    }
+    
+    // Password hashing is saturated; the client should retry shortly
+    private ResponseEntity<ErrorResponse> authBusy() {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(new ErrorResponse(BoundedPasswordEncoder.BUSY, "Too many sign-in attempts, retry shortly"));
+    }
 }
@@ -3,12 +3,13 @@ package com.parkinglot.controller;
 import com.parkinglot.dto.CarDTO;
 import com.parkinglot.dto.CarRequest;
 import com.parkinglot.dto.ErrorResponse;
+import com.parkinglot.security.AuthenticatedUser;
 import com.parkinglot.service.CarService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -21,17 +22,15 @@ public class CarController {
     private final CarService carService;
     
     @GetMapping
-    public ResponseEntity<List<CarDTO>> getUserCars(Authentication authentication) {
-        String email = authentication.getName();
-        List<CarDTO> cars = carService.getUserCars(email);
+    public ResponseEntity<List<CarDTO>> getUserCars(@AuthenticationPrincipal AuthenticatedUser principal) {
+        List<CarDTO> cars = carService.getUserCars(principal.getId());
         return ResponseEntity.ok(cars);
     }
     
     @PostMapping
-    public ResponseEntity<?> addCar(@Valid @RequestBody CarRequest request, Authentication authentication) {
+    public ResponseEntity<?> addCar(@Valid @RequestBody CarRequest request, @AuthenticationPrincipal AuthenticatedUser principal) {
         try {
-            String email = authentication.getName();
-            CarDTO car = carService.addCar(email, request);
+            CarDTO car = carService.addCar(principal.getId(), request);
             return ResponseEntity.status(HttpStatus.CREATED).body(car);
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.BAD_REQUEST)
@@ -40,10 +39,9 @@ public class CarController {
     }
     
     @DeleteMapping("/{carId}")
-    public ResponseEntity<?> deleteCar(@PathVariable Long carId, Authentication authentication) {
+    public ResponseEntity<?> deleteCar(@PathVariable Long carId, @AuthenticationPrincipal AuthenticatedUser principal) {
         try {
-            String email = authentication.getName();
-            carService.deleteCar(email, carId);
+            carService.deleteCar(principal.getId(), carId);
             return ResponseEntity.noContent().build();
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
@@ -1,18 +1,40 @@
 package com.parkinglot.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.parkinglot.dto.BatchItemResult;
+import com.parkinglot.dto.BatchLeaveRequest;
+import com.parkinglot.dto.BatchParkRequest;
 import com.parkinglot.dto.ErrorResponse;
+import com.parkinglot.dto.FloorOccupancyDTO;
+import com.parkinglot.dto.GarageDTO;
+import com.parkinglot.dto.PageResponse;
+import com.parkinglot.dto.ParkingHistoryDTO;
 import com.parkinglot.dto.ParkingRequest;
 import com.parkinglot.dto.ParkingSessionDTO;
 import com.parkinglot.dto.ParkingSpotDTO;
+import com.parkinglot.security.AuthenticatedUser;
+import com.parkinglot.service.GarageNotFoundException;
+import com.parkinglot.service.GarageService;
+import com.parkinglot.service.LatencyMetrics;
+import com.parkinglot.service.OccupancyCounters;
 import com.parkinglot.service.ParkingService;
+import com.parkinglot.service.SpotAvailabilityPublisher;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Objects;
+import java.util.function.Consumer;
 
 @RestController
 @RequestMapping("/api")
@@ -20,48 +42,214 @@ import java.util.List;
 public class ParkingController {
     
     private final ParkingService parkingService;
+    private final SpotAvailabilityPublisher spotAvailabilityPublisher;
+    private final OccupancyCounters occupancyCounters;
+    private final GarageService garageService;
+    private final ObjectMapper objectMapper;
+    private final LatencyMetrics latencyMetrics;
     
-    @GetMapping("/spots/available")
-    public ResponseEntity<List<ParkingSpotDTO>> getAvailableSpots(
+    // Garage-scoped endpoints are also mapped without the /garages/{garageId} prefix for the default garage
+    
+    @GetMapping("/garages")
+    public ResponseEntity<List<GarageDTO>> getGarages() {
+        return ResponseEntity.ok(garageService.getGarages());
+    }
+    
+    @GetMapping({"/spots/available", "/garages/{garageId}/spots/available"})
+    public ResponseEntity<?> getAvailableSpots(
+            @PathVariable(required = false) Long garageId,
             @RequestParam(required = false) Integer floor) {
-        List<ParkingSpotDTO> spots = parkingService.getAvailableSpots(floor);
-        return ResponseEntity.ok(spots);
+        try {
+            List<ParkingSpotDTO> spots = latencyMetrics.time("parking.spots.available",
+                    () -> parkingService.getAvailableSpots(garageService.resolveGarageId(garageId), floor));
+            return ResponseEntity.ok(spots);
+        } catch (GarageNotFoundException e) {
+            return garageNotFound(e);
+        }
     }
     
-    @PostMapping("/parking/park")
-    public ResponseEntity<?> parkCar(@Valid @RequestBody ParkingRequest request, Authentication authentication) {
+    @GetMapping({"/spots/available/page", "/garages/{garageId}/spots/available/page"})
+    public ResponseEntity<?> getAvailableSpotsPage(
+            @PathVariable(required = false) Long garageId,
+            @RequestParam(required = false) Integer floor,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int size) {
         try {
-            String email = authentication.getName();
-            ParkingSessionDTO session = parkingService.parkCar(email, request);
+            PageResponse<ParkingSpotDTO> page = parkingService.getAvailableSpotsPage(
+                    garageService.resolveGarageId(garageId), floor, cursor, size);
+            return ResponseEntity.ok(page);
+        } catch (GarageNotFoundException e) {
+            return garageNotFound(e);
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ErrorResponse(e.getMessage(), "Invalid page request"));
+        }
+    }
+    
+    // Same content as /spots/available, written as a chunked JSON array while rows are read
+    @GetMapping({"/spots/available/export", "/garages/{garageId}/spots/available/export"})
+    public ResponseEntity<StreamingResponseBody> exportAvailableSpots(
+            @PathVariable(required = false) Long garageId,
+            @RequestParam(required = false) Integer floor) {
+        Long resolvedGarageId;
+        try {
+            resolvedGarageId = garageService.resolveGarageId(garageId);
+        } catch (GarageNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+        return streamJsonArray((Consumer<ParkingSpotDTO> consumer) ->
+                parkingService.streamAvailableSpots(resolvedGarageId, floor, consumer));
+    }
+    
+    // Free/total spots per floor, served from in-memory counters
+    @GetMapping({"/spots/summary", "/garages/{garageId}/spots/summary"})
+    public ResponseEntity<?> getOccupancySummary(@PathVariable(required = false) Long garageId) {
+        try {
+            List<FloorOccupancyDTO> summary = occupancyCounters.getSummary(garageService.resolveGarageId(garageId));
+            return ResponseEntity.ok(summary);
+        } catch (GarageNotFoundException e) {
+            return garageNotFound(e);
+        }
+    }
+    
+    // Live feed: "snapshot" event with the free spots, then a "spot" event per park/leave
+    @GetMapping(value = {"/spots/available/stream", "/garages/{garageId}/spots/available/stream"},
+            produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamAvailableSpots(
+            @PathVariable(required = false) Long garageId,
+            @RequestParam(required = false) Integer floor) {
+        try {
+            return ResponseEntity.ok(spotAvailabilityPublisher.subscribe(garageService.resolveGarageId(garageId), floor));
+        } catch (GarageNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        }
+    }
+    
+    @PostMapping({"/parking/park", "/garages/{garageId}/parking/park"})
+    public ResponseEntity<?> parkCar(
+            @PathVariable(required = false) Long garageId,
+            @Valid @RequestBody ParkingRequest request,
+            @AuthenticationPrincipal AuthenticatedUser principal) {
+        try {
+            ParkingSessionDTO session = latencyMetrics.time("parking.park",
+                    () -> parkingService.parkCar(principal.getId(), garageService.resolveGarageId(garageId), request));
             return ResponseEntity.status(HttpStatus.CREATED).body(session);
         } catch (RuntimeException e) {
-            HttpStatus status = HttpStatus.CONFLICT;
-            if (e.getMessage().equals("NO_SPOTS_AVAILABLE")) {
-                status = HttpStatus.SERVICE_UNAVAILABLE;
-            } else if (e.getMessage().equals("Car not found")) {
-                status = HttpStatus.NOT_FOUND;
-            }
-            return ResponseEntity.status(status)
+            return ResponseEntity.status(parkErrorStatus(e.getMessage()))
                     .body(new ErrorResponse(e.getMessage(), "Unable to park car"));
         }
     }
     
+    // Up to 500 park requests in one call; each item carries the status the single call would have returned
+    @PostMapping({"/parking/park/batch", "/garages/{garageId}/parking/park/batch"})
+    public ResponseEntity<?> parkCars(
+            @PathVariable(required = false) Long garageId,
+            @Valid @RequestBody BatchParkRequest request,
+            @AuthenticationPrincipal AuthenticatedUser principal) {
+        Long resolvedGarageId;
+        try {
+            resolvedGarageId = garageService.resolveGarageId(garageId);
+        } catch (GarageNotFoundException e) {
+            return garageNotFound(e);
+        }
+        List<BatchItemResult<ParkingSessionDTO>> results = parkingService.parkCars(principal.getId(), resolvedGarageId, request.getItems());
+        results.forEach(result -> result.setStatus(result.getError() == null
+                ? HttpStatus.CREATED.value()
+                : parkErrorStatus(result.getError()).value()));
+        return ResponseEntity.ok(results);
+    }
+    
     @GetMapping("/parking/active")
-    public ResponseEntity<List<ParkingSessionDTO>> getActiveSessions(Authentication authentication) {
-        String email = authentication.getName();
-        List<ParkingSessionDTO> sessions = parkingService.getActiveSessions(email);
+    public ResponseEntity<List<ParkingSessionDTO>> getActiveSessions(@AuthenticationPrincipal AuthenticatedUser principal) {
+        List<ParkingSessionDTO> sessions = parkingService.getActiveSessions(principal.getId());
         return ResponseEntity.ok(sessions);
     }
     
+    @GetMapping("/parking/active/page")
+    public ResponseEntity<?> getActiveSessionsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int size,
+            @AuthenticationPrincipal AuthenticatedUser principal) {
+        try {
+            PageResponse<ParkingSessionDTO> page = parkingService.getActiveSessionsPage(principal.getId(), cursor, size);
+            return ResponseEntity.ok(page);
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ErrorResponse(e.getMessage(), "Invalid page request"));
+        }
+    }
+    
+    @GetMapping("/parking/active/export")
+    public ResponseEntity<StreamingResponseBody> exportActiveSessions(@AuthenticationPrincipal AuthenticatedUser principal) {
+        Long userId = principal.getId();
+        return streamJsonArray((Consumer<ParkingSessionDTO> consumer) -> parkingService.streamActiveSessions(userId, consumer));
+    }
+    
+    // Closed sessions, newest first; nextCursor continues with older ones
+    @GetMapping("/parking/history")
+    public ResponseEntity<?> getSessionHistory(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "100") int size,
+            @AuthenticationPrincipal AuthenticatedUser principal) {
+        try {
+            PageResponse<ParkingHistoryDTO> page = parkingService.getSessionHistoryPage(principal.getId(), cursor, size);
+            return ResponseEntity.ok(page);
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
+                    .body(new ErrorResponse(e.getMessage(), "Invalid page request"));
+        }
+    }
+    
     @PostMapping("/parking/{sessionId}/leave")
-    public ResponseEntity<?> leaveParkingSpot(@PathVariable Long sessionId, Authentication authentication) {
+    public ResponseEntity<?> leaveParkingSpot(@PathVariable Long sessionId, @AuthenticationPrincipal AuthenticatedUser principal) {
         try {
-            String email = authentication.getName();
-            parkingService.leaveParkingSpot(email, sessionId);
-            return ResponseEntity.ok().build();
+            ParkingHistoryDTO receipt = latencyMetrics.time("parking.leave",
+                    () -> parkingService.leaveParkingSpot(principal.getId(), sessionId));
+            return ResponseEntity.ok(receipt);
         } catch (RuntimeException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body(new ErrorResponse(e.getMessage(), "Session not found"));
         }
     }
+    
+    @PostMapping("/parking/leave/batch")
+    public ResponseEntity<List<BatchItemResult<ParkingHistoryDTO>>> leaveParkingSpots(
+            @Valid @RequestBody BatchLeaveRequest request,
+            @AuthenticationPrincipal AuthenticatedUser principal) {
+        List<BatchItemResult<ParkingHistoryDTO>> results = parkingService.leaveParkingSpots(principal.getId(), request.getSessionIds());
+        results.forEach(result -> result.setStatus(result.getError() == null
+                ? HttpStatus.OK.value()
+                : HttpStatus.NOT_FOUND.value()));
+        return ResponseEntity.ok(results);
+    }
+    
+    private HttpStatus parkErrorStatus(String error) {
+        return switch (Objects.toString(error, "")) {
+            case "NO_SPOTS_AVAILABLE" -> HttpStatus.SERVICE_UNAVAILABLE;
+            case "Car not found", "Garage not found", "Reservation not found" -> HttpStatus.NOT_FOUND;
+            default -> HttpStatus.CONFLICT;
+        };
+    }
+    
+    private ResponseEntity<ErrorResponse> garageNotFound(GarageNotFoundException e) {
+        return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                .body(new ErrorResponse(e.getMessage(), "Garage not found"));
+    }
+    
+    private <T> ResponseEntity<StreamingResponseBody> streamJsonArray(Consumer<Consumer<T>> producer) {
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.writeStartArray();
+                producer.accept(item -> {
+                    try {
+                        generator.writeObject(item);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
 }
@@ -0,0 +1,62 @@
+package com.parkinglot.controller;
+
+import com.parkinglot.dto.ErrorResponse;
+import com.parkinglot.dto.ReservationDTO;
+import com.parkinglot.dto.ReservationRequest;
+import com.parkinglot.security.AuthenticatedUser;
+import com.parkinglot.service.GarageService;
+import com.parkinglot.service.ReservationService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Objects;
+
+@RestController
+@RequestMapping("/api")
+@RequiredArgsConstructor
+public class ReservationController {
+    
+    private final ReservationService reservationService;
+    private final GarageService garageService;
+    
+    @PostMapping({"/reservations", "/garages/{garageId}/reservations"})
+    public ResponseEntity<?> reserve(
+            @PathVariable(required = false) Long garageId,
+            @Valid @RequestBody ReservationRequest request,
+            @AuthenticationPrincipal AuthenticatedUser principal) {
+        try {
+            ReservationDTO reservation = reservationService.reserve(principal.getId(), garageService.resolveGarageId(garageId), request);
+            return ResponseEntity.status(HttpStatus.CREATED).body(reservation);
+        } catch (RuntimeException e) {
+            HttpStatus status = switch (Objects.toString(e.getMessage(), "")) {
+                case "INVALID_RESERVATION_WINDOW" -> HttpStatus.BAD_REQUEST;
+                case "Car not found", "Garage not found", "Parking spot not found" -> HttpStatus.NOT_FOUND;
+                default -> HttpStatus.CONFLICT;
+            };
+            return ResponseEntity.status(status)
+                    .body(new ErrorResponse(e.getMessage(), "Unable to reserve spot"));
+        }
+    }
+    
+    // Booked reservations that have not ended yet, soonest first
+    @GetMapping("/reservations")
+    public ResponseEntity<List<ReservationDTO>> getReservations(@AuthenticationPrincipal AuthenticatedUser principal) {
+        return ResponseEntity.ok(reservationService.getUpcomingReservations(principal.getId()));
+    }
+    
+    @DeleteMapping("/reservations/{reservationId}")
+    public ResponseEntity<?> cancel(@PathVariable Long reservationId, @AuthenticationPrincipal AuthenticatedUser principal) {
+        try {
+            reservationService.cancel(principal.getId(), reservationId);
+            return ResponseEntity.noContent().build();
+        } catch (RuntimeException e) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                    .body(new ErrorResponse(e.getMessage(), "Reservation not found"));
+        }
+    }
+}
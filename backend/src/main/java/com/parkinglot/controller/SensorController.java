@@ -0,0 +1,31 @@
+package com.parkinglot.controller;
+
+import com.parkinglot.dto.IngestReport;
+import com.parkinglot.dto.SensorEventBatch;
+import com.parkinglot.service.SensorIngestService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/sensors")
+@RequiredArgsConstructor
+public class SensorController {
+    
+    private final SensorIngestService sensorIngestService;
+    
+    // Events are applied asynchronously; 503 means some were not queued and should be resubmitted
+    @PostMapping("/events")
+    public ResponseEntity<IngestReport> ingest(@Valid @RequestBody SensorEventBatch batch) {
+        IngestReport report = sensorIngestService.submit(batch.getEvents());
+        HttpStatus status = report.getAccepted() + report.getDuplicates() < report.getReceived()
+                ? HttpStatus.SERVICE_UNAVAILABLE
+                : HttpStatus.ACCEPTED;
+        return ResponseEntity.status(status).body(report);
+    }
+}
@@ -0,0 +1,16 @@
+package com.parkinglot.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class AnalyticsBackfillReport {
+    private Long sessions;
+    // Archive months plus the live table, scanned in parallel
+    private Integer partitions;
+    private Long durationMs;
+    private Long sessionsPerSecond;
+}
@@ -0,0 +1,27 @@
+package com.parkinglot.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of one item of a batch request: the HTTP status the single-item call would have returned,
+ * plus either its result or its error code.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchItemResult<T> {
+    private Integer index;
+    private Integer status;
+    private T result;
+    private String error;
+    
+    public static <T> BatchItemResult<T> success(int index, T result) {
+        return new BatchItemResult<>(index, null, result, null);
+    }
+    
+    public static <T> BatchItemResult<T> failure(int index, String error) {
+        return new BatchItemResult<>(index, null, null, error);
+    }
+}
@@ -0,0 +1,20 @@
+package com.parkinglot.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchLeaveRequest {
+    
+    @NotEmpty(message = "At least one session is required")
+    @Size(max = 500, message = "At most 500 sessions per batch")
+    private List<@NotNull Long> sessionIds;
+}
@@ -0,0 +1,20 @@
+package com.parkinglot.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchParkRequest {
+    
+    @NotEmpty(message = "At least one item is required")
+    @Size(max = 500, message = "At most 500 items per batch")
+    private List<@Valid ParkingRequest> items;
+}
@@ -0,0 +1,19 @@
+package com.parkinglot.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FloorAnalyticsDTO {
+    private Integer floor;
+    private Long totalSpots;
+    // Sessions that ended in the range
+    private Long sessions;
+    private Double averageDwellMinutes;
+    // Share of the floor's spot-hours that were occupied
+    private Double averageOccupancy;
+    private Double turnoverPerSpotPerDay;
+}
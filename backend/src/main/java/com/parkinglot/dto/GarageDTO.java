@@ -0,0 +1,14 @@
+package com.parkinglot.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GarageDTO {
+    private Long id;
+    private String code;
+    private String name;
+}
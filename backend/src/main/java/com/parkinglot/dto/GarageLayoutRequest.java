@@ -0,0 +1,34 @@
+package com.parkinglot.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GarageLayoutRequest {
+    
+    @NotEmpty(message = "At least one floor is required")
+    private List<@Valid FloorLayout> floors;
+    
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class FloorLayout {
+        
+        @NotNull(message = "Floor is required")
+        private Integer floor;
+        
+        // Spots are numbered 1..spots; numbers that already exist on the floor are skipped
+        @NotNull(message = "Number of spots is required")
+        @Min(value = 1, message = "A floor needs at least one spot")
+        private Integer spots;
+    }
+}
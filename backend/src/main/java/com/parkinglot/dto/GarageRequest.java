@@ -0,0 +1,20 @@
+package com.parkinglot.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GarageRequest {
+    
+    @NotBlank(message = "Code is required")
+    @Pattern(regexp = "^[a-z0-9-]{1,32}$", message = "Code must be up to 32 lowercase letters, digits or dashes")
+    private String code;
+    
+    @NotBlank(message = "Name is required")
+    private String name;
+}
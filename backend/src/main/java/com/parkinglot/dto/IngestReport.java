@@ -0,0 +1,18 @@
+package com.parkinglot.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of a sensor event submission. Events that were neither accepted nor duplicates were not
+ * queued (queue full) and should be retried.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class IngestReport {
+    private int received;
+    private int accepted;
+    private int duplicates;
+}
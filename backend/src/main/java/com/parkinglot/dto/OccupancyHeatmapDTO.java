@@ -0,0 +1,25 @@
+package com.parkinglot.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+
+/**
+ * Average cars parked and arrivals per day of week (rows, Monday first) and hour of day (columns).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OccupancyHeatmapDTO {
+    private LocalDateTime from;
+    private LocalDateTime to;
+    // Null for the whole garage
+    private Integer floor;
+    private double[][] averageOccupied;
+    private double[][] averageArrivals;
+    private DayOfWeek peakDay;
+    private Integer peakHour;
+}
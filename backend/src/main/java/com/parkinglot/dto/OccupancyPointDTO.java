@@ -0,0 +1,21 @@
+package com.parkinglot.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One hour of an occupancy curve: cars parked on average during the hour, and sessions that started
+ * and ended in it.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OccupancyPointDTO {
+    private LocalDateTime hour;
+    private Double averageOccupied;
+    private Integer arrivals;
+    private Integer departures;
+}
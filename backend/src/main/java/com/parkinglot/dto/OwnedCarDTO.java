@@ -0,0 +1,22 @@
+package com.parkinglot.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// A car together with its owner, as kept in the "cars" cache
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OwnedCarDTO {
+    private Long id;
+    private Long userId;
+    private String make;
+    private String model;
+    private String licensePlate;
+    private String color;
+    
+    public CarDTO toCarDTO() {
+        return new CarDTO(id, make, model, licensePlate, color);
+    }
+}
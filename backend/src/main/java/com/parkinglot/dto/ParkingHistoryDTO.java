@@ -0,0 +1,22 @@
+package com.parkinglot.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ParkingHistoryDTO {
+    private Long parkingSessionId;
+    private Long garageId;
+    private Long carId;
+    private String licensePlate;
+    private Integer floor;
+    private Integer spotNumber;
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+    private Long amountCents;
+}
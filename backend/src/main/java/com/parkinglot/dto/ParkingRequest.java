@@ -13,9 +13,13 @@ public class ParkingRequest {
     @NotNull(message = "Car ID is required")
     private Long carId;
     
-    // Optional: if not provided, system will auto-assign available spot
+    // Optional: if not provided, system will auto-assign available spot.
+    // Without spotNumber it is treated as the preferred floor for auto-assignment
     private Integer floor;
     
     // Optional: if not provided, system will auto-assign available spot
     private Integer spotNumber;
+    
+    // Optional: park on the spot of this reservation; floor and spotNumber are then ignored
+    private Long reservationId;
 }
@@ -11,7 +11,19 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 public class ParkingSessionDTO {
     private Long parkingSessionId;
+    private Long garageId;
     private CarDTO car;
     private ParkingSpotDTO spot;
     private LocalDateTime startTime;
+    
+    // Flat form used by JPQL constructor projections, which cannot build the nested DTOs themselves
+    public ParkingSessionDTO(Long parkingSessionId, Long garageId,
+                             Long carId, String make, String model, String licensePlate, String color,
+                             Long spotId, Integer floor, Integer spotNumber, Boolean occupied,
+                             LocalDateTime startTime) {
+        this(parkingSessionId, garageId,
+                new CarDTO(carId, make, model, licensePlate, color),
+                new ParkingSpotDTO(spotId, floor, spotNumber, occupied),
+                startTime);
+    }
 }
@@ -0,0 +1,16 @@
+package com.parkinglot.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProvisioningReport {
+    private Integer floors;
+    private Long spotsCreated;
+    private Long spotsSkipped;
+    private Long durationMs;
+    private Long spotsPerSecond;
+}
@@ -0,0 +1,23 @@
+package com.parkinglot.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RequestTraceDTO {
+    private Long sequence;
+    private Instant startedAt;
+    private String method;
+    private String uri;
+    private Integer status;
+    private Double durationMs;
+    private Integer sqlStatements;
+    private Double sqlTimeMs;
+    private List<SlowStatementDTO> slowStatements;
+}
@@ -0,0 +1,16 @@
+package com.parkinglot.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RerateReport {
+    private Integer month;
+    private Long sessions;
+    private Long totalCents;
+    private Long durationMs;
+    private Long sessionsPerSecond;
+}
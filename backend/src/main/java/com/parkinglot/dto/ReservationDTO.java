@@ -0,0 +1,24 @@
+package com.parkinglot.dto;
+
+import com.parkinglot.model.ReservationStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservationDTO {
+    private Long reservationId;
+    private Long garageId;
+    private Long carId;
+    private String licensePlate;
+    private Long spotId;
+    private Integer floor;
+    private Integer spotNumber;
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+    private ReservationStatus status;
+}
@@ -0,0 +1,28 @@
+package com.parkinglot.dto;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservationRequest {
+    
+    @NotNull(message = "Car ID is required")
+    private Long carId;
+    
+    // Optional: without spotNumber any free spot on this floor is reserved (any floor when both are missing)
+    private Integer floor;
+    
+    private Integer spotNumber;
+    
+    @NotNull(message = "Start time is required")
+    private LocalDateTime startTime;
+    
+    @NotNull(message = "End time is required")
+    private LocalDateTime endTime;
+}
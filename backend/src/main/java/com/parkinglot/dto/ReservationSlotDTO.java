@@ -0,0 +1,19 @@
+package com.parkinglot.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * The part of a booking the in-memory reservation index keeps.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservationSlotDTO {
+    private Long spotId;
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+}
@@ -0,0 +1,30 @@
+package com.parkinglot.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SensorEvent {
+    
+    // Idempotency key: a retried event must carry the same id
+    @NotBlank(message = "Event ID is required")
+    @Size(max = 128, message = "Event ID must be at most 128 characters")
+    private String eventId;
+    
+    @NotNull(message = "Spot ID is required")
+    private Long spotId;
+    
+    @NotNull(message = "Occupied flag is required")
+    private Boolean occupied;
+    
+    // Optional: when the sensor saw the change; defaults to when it was received
+    private LocalDateTime observedAt;
+}
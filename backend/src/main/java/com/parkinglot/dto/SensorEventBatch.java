@@ -0,0 +1,20 @@
+package com.parkinglot.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SensorEventBatch {
+    
+    @NotEmpty(message = "At least one event is required")
+    @Size(max = 10000, message = "At most 10000 events per request")
+    private List<@Valid SensorEvent> events;
+}
@@ -0,0 +1,20 @@
+package com.parkinglot.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A parking session was closed. Published by ParkingService and folded into the occupancy analytics.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SessionClosedEvent {
+    private Long garageId;
+    private Integer floor;
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+}
@@ -0,0 +1,21 @@
+package com.parkinglot.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * What re-rating needs to know about an archived session.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SessionRatingDTO {
+    private Long id;
+    private Integer floor;
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+    private Long amountCents;
+}
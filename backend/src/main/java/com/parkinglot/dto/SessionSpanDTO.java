@@ -0,0 +1,21 @@
+package com.parkinglot.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * What the occupancy analytics backfill needs to know about a closed session.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SessionSpanDTO {
+    private Long id;
+    private Long garageId;
+    private Integer floor;
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+}
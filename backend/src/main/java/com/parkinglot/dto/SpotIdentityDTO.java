@@ -0,0 +1,16 @@
+package com.parkinglot.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+// Where a spot is; never changes once the spot is provisioned, unlike its occupancy
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SpotIdentityDTO {
+    private Long id;
+    private Long garageId;
+    private Integer floor;
+    private Integer spotNumber;
+}
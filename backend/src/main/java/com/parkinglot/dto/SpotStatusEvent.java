@@ -0,0 +1,19 @@
+package com.parkinglot.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A spot became occupied or free. Published by ParkingService and pushed to live availability subscribers.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SpotStatusEvent {
+    private Long garageId;
+    private Long spotId;
+    private Integer floor;
+    private Integer spotNumber;
+    private Boolean occupied;
+}
@@ -0,0 +1,78 @@
+package com.parkinglot.jdbc;
+
+import com.parkinglot.dto.SlowStatementDTO;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Per-thread tally of the SQL statements run while a trace is open: how many, how long in total, and
+ * the text of the slowest few. Fed by {@link TracingDataSource}; nothing is recorded when no trace is open.
+ */
+public final class SqlTrace {
+    
+    private static final ThreadLocal<SqlTrace> CURRENT = new ThreadLocal<>();
+    private static final int MAX_SLOW_STATEMENTS = 10;
+    private static final int MAX_SQL_LENGTH = 1000;
+    
+    private final long slowThresholdNanos;
+    private int statements;
+    private long nanos;
+    private List<SlowStatementDTO> slowStatements;
+    
+    private SqlTrace(long slowThresholdNanos) {
+        this.slowThresholdNanos = slowThresholdNanos;
+    }
+    
+    /**
+     * Opens a trace on the calling thread. Statements taking at least {@code slowThresholdNanos} keep their SQL.
+     */
+    public static SqlTrace start(long slowThresholdNanos) {
+        SqlTrace trace = new SqlTrace(slowThresholdNanos);
+        CURRENT.set(trace);
+        return trace;
+    }
+    
+    public static void stop() {
+        CURRENT.remove();
+    }
+    
+    static boolean isActive() {
+        return CURRENT.get() != null;
+    }
+    
+    static void record(String sql, long elapsedNanos) {
+        SqlTrace trace = CURRENT.get();
+        if (trace == null) {
+            return;
+        }
+        trace.statements++;
+        trace.nanos += elapsedNanos;
+        if (elapsedNanos >= trace.slowThresholdNanos) {
+            if (trace.slowStatements == null) {
+                trace.slowStatements = new ArrayList<>();
+            }
+            if (trace.slowStatements.size() < MAX_SLOW_STATEMENTS) {
+                String text = sql == null ? "(batch)" : sql.length() > MAX_SQL_LENGTH ? sql.substring(0, MAX_SQL_LENGTH) : sql;
+                trace.slowStatements.add(new SlowStatementDTO(text, elapsedNanos / 1e6));
+            }
+        }
+    }
+    
+    public int getStatements() {
+        return statements;
+    }
+    
+    public long getNanos() {
+        return nanos;
+    }
+    
+    public boolean hasSlowStatements() {
+        return slowStatements != null;
+    }
+    
+    public List<SlowStatementDTO> getSlowStatements() {
+        return slowStatements != null ? slowStatements : Collections.emptyList();
+    }
+}
@@ -0,0 +1,82 @@
+package com.parkinglot.jdbc;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Times the statements executed on connections from the wrapped pool and reports them to the calling
+ * thread's {@link SqlTrace}, if one is open. A JDBC batch counts as one statement (one round trip).
+ * Costs a proxy dispatch per JDBC call plus two clock reads per execution while a trace is open.
+ */
+public class TracingDataSource extends DelegatingDataSource {
+    
+    public TracingDataSource(DataSource target) {
+        super(target);
+    }
+    
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(super.getConnection());
+    }
+    
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(super.getConnection(username, password));
+    }
+    
+    private static Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                new ConnectionHandler(connection));
+    }
+    
+    private record ConnectionHandler(Connection target) implements InvocationHandler {
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = invokeTarget(target, method, args);
+            // prepareStatement/prepareCall carry the SQL; plain statements get it on execute
+            String sql = args != null && args.length > 0 && args[0] instanceof String text ? text : null;
+            if (result instanceof CallableStatement statement) {
+                return statementProxy(statement, CallableStatement.class, sql);
+            } else if (result instanceof PreparedStatement statement) {
+                return statementProxy(statement, PreparedStatement.class, sql);
+            } else if (result instanceof Statement statement) {
+                return statementProxy(statement, Statement.class, null);
+            }
+            return result;
+        }
+    }
+    
+    private static Object statementProxy(Statement statement, Class<? extends Statement> type, String preparedSql) {
+        return Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (!method.getName().startsWith("execute") || !SqlTrace.isActive()) {
+                return invokeTarget(statement, method, args);
+            }
+            long start = System.nanoTime();
+            try {
+                return invokeTarget(statement, method, args);
+            } finally {
+                String sql = preparedSql != null ? preparedSql
+                        : args != null && args.length > 0 && args[0] instanceof String text ? text : null;
+                SqlTrace.record(sql, System.nanoTime() - start);
+            }
+        });
+    }
+    
+    private static Object invokeTarget(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
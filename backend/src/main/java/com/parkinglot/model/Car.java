@@ -6,7 +6,9 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
-@Table(name = "cars")
+@Table(name = "cars", indexes = {
+    @Index(name = "idx_car_user", columnList = "user_id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,28 @@
+package com.parkinglot.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A parking site. Spots and sessions are keyed by garage first, so each site's rows can live
+ * in their own partition.
+ */
+@Entity
+@Table(name = "garages")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Garage {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(nullable = false, unique = true)
+    private String code;
+    
+    @Column(nullable = false)
+    private String name;
+}
@@ -8,16 +8,30 @@ import lombok.NoArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "parking_sessions")
+@Table(name = "parking_sessions", indexes = {
+    // Active-session listings: equality on user and active, keyset on id
+    @Index(name = "idx_session_user_active", columnList = "user_id, active, id")
+}, uniqueConstraints = {
+    // At most one active session per car and per spot; closed sessions hold NULL, which never collides
+    @UniqueConstraint(name = "uk_session_active_car", columnNames = "active_car_id"),
+    @UniqueConstraint(name = "uk_session_active_spot", columnNames = "active_spot_id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class ParkingSession {
     
+    // Sequence rather than identity so batch parking can insert sessions in JDBC batches
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "parking_sessions_seq")
+    @SequenceGenerator(name = "parking_sessions_seq", sequenceName = "parking_sessions_seq", allocationSize = 50)
     private Long id;
     
+    // Copied from the spot so sessions can be partitioned by garage like spots are
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "garage_id", nullable = false)
+    private Garage garage;
+    
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
@@ -26,7 +40,8 @@ public class ParkingSession {
     @JoinColumn(name = "car_id", nullable = false)
     private Car car;
     
-    @OneToOne(fetch = FetchType.LAZY)
+    // Many sessions over time share a spot; only one of them is active
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "parking_spot_id", nullable = false)
     private ParkingSpot parkingSpot;
     
@@ -38,4 +53,16 @@ public class ParkingSession {
     
     @Column(nullable = false)
     private Boolean active = true;
+    
+    // Charge computed when the session is closed
+    @Column
+    private Long amountCents;
+    
+    // Car and spot ids while the session is active, NULL once it is closed. Stand-ins for partial unique
+    // indexes (WHERE active), which not every database supports
+    @Column(name = "active_car_id")
+    private Long activeCarId;
+    
+    @Column(name = "active_spot_id")
+    private Long activeSpotId;
 }
@@ -0,0 +1,62 @@
+package com.parkinglot.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A closed parking session moved out of parking_sessions. Rows keep the original session id and
+ * copy the car and spot details they are listed with, so they do not depend on the live tables.
+ * archive_month (yyyymm of the end time) is the partition key for splitting the table per month.
+ */
+@Entity
+@Table(name = "parking_session_history", indexes = {
+    @Index(name = "idx_history_user_id", columnList = "user_id, id"),
+    @Index(name = "idx_history_archive_month", columnList = "archive_month, id")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ParkingSessionHistory {
+    
+    // Same id as the archived session; assigned, not generated
+    @Id
+    private Long id;
+    
+    @Column(name = "archive_month", nullable = false)
+    private Integer archiveMonth;
+    
+    @Column(name = "garage_id", nullable = false)
+    private Long garageId;
+    
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+    
+    @Column(name = "car_id", nullable = false)
+    private Long carId;
+    
+    @Column(nullable = false)
+    private String licensePlate;
+    
+    @Column(name = "parking_spot_id", nullable = false)
+    private Long parkingSpotId;
+    
+    @Column(nullable = false)
+    private Integer floor;
+    
+    @Column(nullable = false)
+    private Integer spotNumber;
+    
+    @Column(nullable = false)
+    private LocalDateTime startTime;
+    
+    @Column(nullable = false)
+    private LocalDateTime endTime;
+    
+    // Recomputed by BillingService.rerate when the tariff changes
+    @Column
+    private Long amountCents;
+}
@@ -6,18 +6,28 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Entity
+// Spot numbers are unique per garage; the garage leads the key so each site can be its own partition
 @Table(name = "parking_spots", uniqueConstraints = {
-    @UniqueConstraint(columnNames = {"floor", "spotNumber"})
+    @UniqueConstraint(columnNames = {"garage_id", "floor", "spotNumber"})
+}, indexes = {
+    // Covers the free-spot listings: filter on (garage, occupied), already in (floor, spotNumber) order
+    @Index(name = "idx_spot_free", columnList = "garage_id, occupied, floor, spotNumber")
 })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class ParkingSpot {
     
+    // Pooled sequence ids (unlike IDENTITY) let Hibernate batch inserts when garages are provisioned
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "parking_spots_seq")
+    @SequenceGenerator(name = "parking_spots_seq", sequenceName = "parking_spots_seq", allocationSize = 50)
     private Long id;
     
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "garage_id", nullable = false)
+    private Garage garage;
+    
     @Column(nullable = false)
     private Integer floor;
     
@@ -26,7 +36,4 @@ public class ParkingSpot {
     
     @Column(nullable = false)
     private Boolean occupied = false;
-    
-    @OneToOne(mappedBy = "parkingSpot")
-    private ParkingSession currentParkingSession;
 }
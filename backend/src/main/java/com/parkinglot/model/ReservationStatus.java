@@ -0,0 +1,7 @@
+package com.parkinglot.model;
+
+public enum ReservationStatus {
+    BOOKED,
+    FULFILLED,
+    CANCELLED
+}
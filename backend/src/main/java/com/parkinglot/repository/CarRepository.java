@@ -1,15 +1,26 @@
 package com.parkinglot.repository;
 
+import com.parkinglot.dto.OwnedCarDTO;
 import com.parkinglot.model.Car;
-import com.parkinglot.model.User;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface CarRepository extends JpaRepository<Car, Long> {
-    List<Car> findByUser(User user);
-    Optional<Car> findByIdAndUser(Long id, User user);
+    List<Car> findByUserId(Long userId);
+    Optional<Car> findByIdAndUserId(Long id, Long userId);
+    List<Car> findByIdInAndUserId(Collection<Long> ids, Long userId);
+    
+    // Cached by car id; evicted when the car is deleted (cars are never edited)
+    @Cacheable(cacheNames = "cars", unless = "#result == null")
+    @Query("select new com.parkinglot.dto.OwnedCarDTO(c.id, c.user.id, c.make, c.model, c.licensePlate, c.color) " +
+           "from Car c where c.id = :id")
+    OwnedCarDTO findOwnedCar(@Param("id") Long id);
 }
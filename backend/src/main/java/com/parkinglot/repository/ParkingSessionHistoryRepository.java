@@ -0,0 +1,46 @@
+package com.parkinglot.repository;
+
+import com.parkinglot.dto.ParkingHistoryDTO;
+import com.parkinglot.dto.SessionRatingDTO;
+import com.parkinglot.dto.SessionSpanDTO;
+import com.parkinglot.model.ParkingSessionHistory;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface ParkingSessionHistoryRepository extends JpaRepository<ParkingSessionHistory, Long> {
+    
+    // Keyset queries order by the full index key (not just id) so the database can read the index
+    // in order and stop at the limit instead of sorting every matching row
+    
+    // Newest first, starting below the given session id
+    @Query("select new com.parkinglot.dto.ParkingHistoryDTO(h.id, h.garageId, h.carId, h.licensePlate, " +
+           "h.floor, h.spotNumber, h.startTime, h.endTime, h.amountCents) " +
+           "from ParkingSessionHistory h where h.userId = :userId and h.id < :beforeId " +
+           "order by h.userId desc, h.id desc")
+    List<ParkingHistoryDTO> findHistoryBefore(@Param("userId") Long userId,
+                                              @Param("beforeId") long beforeId,
+                                              Limit limit);
+    
+    // Next chunk of a month (optionally one garage) for re-rating, in id order
+    @Query("select new com.parkinglot.dto.SessionRatingDTO(h.id, h.floor, h.startTime, h.endTime, h.amountCents) " +
+           "from ParkingSessionHistory h where h.archiveMonth = :month " +
+           "and (:garageId is null or h.garageId = :garageId) and h.id > :afterId order by h.archiveMonth, h.id")
+    List<SessionRatingDTO> findForRerate(@Param("month") int month,
+                                              @Param("garageId") Long garageId,
+                                              @Param("afterId") long afterId,
+                                              Limit limit);
+    
+    @Query("select distinct h.archiveMonth from ParkingSessionHistory h where h.archiveMonth >= :fromMonth order by h.archiveMonth")
+    List<Integer> findArchiveMonthsFrom(@Param("fromMonth") int fromMonth);
+    
+    // Next chunk of a month for the occupancy analytics backfill, in id order
+    @Query("select new com.parkinglot.dto.SessionSpanDTO(h.id, h.garageId, h.floor, h.startTime, h.endTime) " +
+           "from ParkingSessionHistory h where h.archiveMonth = :month and h.id > :afterId order by h.archiveMonth, h.id")
+    List<SessionSpanDTO> findSpans(@Param("month") int month, @Param("afterId") long afterId, Limit limit);
+}
@@ -1,17 +1,81 @@
 package com.parkinglot.repository;
 
-import com.parkinglot.model.Car;
+import com.parkinglot.dto.ParkingHistoryDTO;
+import com.parkinglot.dto.ParkingSessionDTO;
+import com.parkinglot.dto.SessionSpanDTO;
 import com.parkinglot.model.ParkingSession;
-import com.parkinglot.model.User;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface ParkingSessionRepository extends JpaRepository<ParkingSession, Long> {
-    List<ParkingSession> findByUserAndActive(User user, Boolean active);
-    Optional<ParkingSession> findByIdAndUser(Long id, User user);
-    boolean existsByCarAndActive(Car car, Boolean active);
+    // Session listings are projected straight into DTOs: one statement, no lazy car/spot loads
+    String SESSION_DTO_SELECT = "select new com.parkinglot.dto.ParkingSessionDTO(s.id, s.garage.id, " +
+            "c.id, c.make, c.model, c.licensePlate, c.color, " +
+            "p.id, p.floor, p.spotNumber, p.occupied, s.startTime) " +
+            "from ParkingSession s join s.car c join s.parkingSpot p ";
+    
+    Optional<ParkingSession> findByIdAndUserId(Long id, Long userId);
+    // Single-row probe of the uk_session_active_car index
+    boolean existsByActiveCarId(Long carId);
+    
+    @Query("select s.activeCarId from ParkingSession s where s.activeCarId in :carIds")
+    List<Long> findActiveCarIds(@Param("carIds") Collection<Long> carIds);
+    
+    @Query("select s from ParkingSession s join fetch s.car join fetch s.parkingSpot " +
+           "where s.id in :ids and s.user.id = :userId and s.active = true")
+    List<ParkingSession> findActiveByIdInAndUserId(@Param("ids") Collection<Long> ids, @Param("userId") Long userId);
+    
+    @Query("select s from ParkingSession s join fetch s.car join fetch s.parkingSpot where s.activeSpotId in :spotIds")
+    List<ParkingSession> findActiveBySpotIds(@Param("spotIds") Collection<Long> spotIds);
+    
+    // Atomic close: returns 1 only for the caller that flipped the session from active to closed
+    @Modifying
+    @Query("update ParkingSession s set s.active = false, s.endTime = :endTime, s.amountCents = :amountCents, " +
+           "s.activeCarId = null, s.activeSpotId = null where s.id = :id and s.active = true")
+    int closeSession(@Param("id") Long id, @Param("endTime") LocalDateTime endTime, @Param("amountCents") long amountCents);
+    
+    @Query(SESSION_DTO_SELECT + "where s.user.id = :userId and s.active = true order by s.id")
+    List<ParkingSessionDTO> findActiveSessionDTOs(@Param("userId") Long userId);
+    
+    @Query(SESSION_DTO_SELECT + "where s.user.id = :userId and s.active = true and s.id > :afterId order by s.id")
+    List<ParkingSessionDTO> findActiveSessionDTOsAfter(@Param("userId") Long userId,
+                                                       @Param("afterId") long afterId,
+                                                       Limit limit);
+    
+    // Closed sessions not archived yet, in the same shape and order as ParkingSessionHistoryRepository.findHistoryBefore
+    @Query("select new com.parkinglot.dto.ParkingHistoryDTO(s.id, s.garage.id, c.id, c.licensePlate, " +
+           "p.floor, p.spotNumber, s.startTime, s.endTime, s.amountCents) " +
+           "from ParkingSession s join s.car c join s.parkingSpot p " +
+           "where s.user.id = :userId and s.active = false and s.id < :beforeId order by s.id desc")
+    List<ParkingHistoryDTO> findClosedHistoryBefore(@Param("userId") Long userId,
+                                                    @Param("beforeId") long beforeId,
+                                                    Limit limit);
+    
+    // Next chunk for SessionArchiver, with car and spot loaded so the history rows can be built without extra queries
+    @Query("select s from ParkingSession s join fetch s.car join fetch s.parkingSpot where s.active = false order by s.id")
+    List<ParkingSession> findClosedForArchive(Limit limit);
+    
+    // Next chunk of closed sessions not archived yet, for the occupancy analytics backfill
+    @Query("select new com.parkinglot.dto.SessionSpanDTO(s.id, s.garage.id, p.floor, s.startTime, s.endTime) " +
+           "from ParkingSession s join s.parkingSpot p where s.active = false and s.id > :afterId order by s.id")
+    List<SessionSpanDTO> findClosedSpans(@Param("afterId") long afterId, Limit limit);
+    
+    @Query(SESSION_DTO_SELECT + "where s.user.id = :userId and s.active = true order by s.id")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    Stream<ParkingSessionDTO> streamActiveSessionDTOs(@Param("userId") Long userId);
 }
@@ -1,15 +1,90 @@
 package com.parkinglot.repository;
 
+import com.parkinglot.dto.FloorOccupancyDTO;
+import com.parkinglot.dto.ParkingSpotDTO;
+import com.parkinglot.dto.SpotIdentityDTO;
 import com.parkinglot.model.ParkingSpot;
+import jakarta.persistence.QueryHint;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+
+// Every lookup is scoped to one garage (and leads with garage_id), so a site never scans another site's rows
 @Repository
 public interface ParkingSpotRepository extends JpaRepository<ParkingSpot, Long> {
-    List<ParkingSpot> findByOccupied(Boolean occupied);
-    List<ParkingSpot> findByFloorAndOccupied(Integer floor, Boolean occupied);
-    Optional<ParkingSpot> findByFloorAndSpotNumber(Integer floor, Integer spotNumber);
+    Optional<ParkingSpot> findByGarageIdAndFloorAndSpotNumber(Long garageId, Integer floor, Integer spotNumber);
+    
+    long countByGarageId(Long garageId);
+    
+    // Spots are never moved or deleted, so their identities are cached without invalidation
+    @Cacheable(cacheNames = "spots", unless = "#result == null")
+    @Query("select new com.parkinglot.dto.SpotIdentityDTO(s.id, s.garage.id, s.floor, s.spotNumber) " +
+           "from ParkingSpot s where s.id = :id")
+    SpotIdentityDTO findIdentityById(@Param("id") Long id);
+    
+    @Cacheable(cacheNames = "spotPositions", unless = "#result == null")
+    @Query("select new com.parkinglot.dto.SpotIdentityDTO(s.id, s.garage.id, s.floor, s.spotNumber) " +
+           "from ParkingSpot s where s.garage.id = :garageId and s.floor = :floor and s.spotNumber = :spotNumber")
+    SpotIdentityDTO findIdentityByPosition(@Param("garageId") Long garageId,
+                                           @Param("floor") Integer floor,
+                                           @Param("spotNumber") Integer spotNumber);
+    
+    @Query("select s.spotNumber from ParkingSpot s where s.garage.id = :garageId and s.floor = :floor")
+    List<Integer> findSpotNumbersByFloor(@Param("garageId") Long garageId, @Param("floor") Integer floor);
+    
+    // Reservation candidates once every free spot is booked, in (floor, spotNumber) order; read only as far as needed
+    @Query("select s.id from ParkingSpot s where s.garage.id = :garageId and s.occupied = true " +
+           "and (:floor is null or s.floor = :floor) order by s.floor, s.spotNumber")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "100"))
+    Stream<Long> streamOccupiedIdsByFloor(@Param("garageId") Long garageId, @Param("floor") Integer floor);
+    
+    @Query("select new com.parkinglot.dto.ParkingSpotDTO(s.id, s.floor, s.spotNumber, s.occupied) " +
+           "from ParkingSpot s where s.garage.id = :garageId and s.occupied = false " +
+           "and (:floor is null or s.floor = :floor) " +
+           "order by s.floor, s.spotNumber")
+    List<ParkingSpotDTO> findAvailable(@Param("garageId") Long garageId, @Param("floor") Integer floor);
+    
+    // Keyset page of free spots ordered by (floor, spotNumber), starting after the given position
+    @Query("select new com.parkinglot.dto.ParkingSpotDTO(s.id, s.floor, s.spotNumber, s.occupied) " +
+           "from ParkingSpot s where s.garage.id = :garageId and s.occupied = false " +
+           "and (:floor is null or s.floor = :floor) " +
+           "and (s.floor > :afterFloor or (s.floor = :afterFloor and s.spotNumber > :afterSpotNumber)) " +
+           "order by s.floor, s.spotNumber")
+    List<ParkingSpotDTO> findAvailableAfter(@Param("garageId") Long garageId,
+                                            @Param("floor") Integer floor,
+                                            @Param("afterFloor") int afterFloor,
+                                            @Param("afterSpotNumber") int afterSpotNumber,
+                                            Limit limit);
+    
+    @Query("select new com.parkinglot.dto.ParkingSpotDTO(s.id, s.floor, s.spotNumber, s.occupied) " +
+           "from ParkingSpot s where s.garage.id = :garageId and s.occupied = false " +
+           "and (:floor is null or s.floor = :floor) " +
+           "order by s.floor, s.spotNumber")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    Stream<ParkingSpotDTO> streamAvailable(@Param("garageId") Long garageId, @Param("floor") Integer floor);
+    
+    @Query("select new com.parkinglot.dto.FloorOccupancyDTO(s.floor, count(s), " +
+           "sum(case when s.occupied = false then 1L else 0L end)) " +
+           "from ParkingSpot s where s.garage.id = :garageId group by s.floor order by s.floor")
+    List<FloorOccupancyDTO> countByFloor(@Param("garageId") Long garageId);
+    
+    // Atomic claim: returns 1 only for the caller that flipped the spot from free to occupied
+    @Modifying
+    @Query("update ParkingSpot s set s.occupied = true where s.id = :id and s.occupied = false")
+    int claimSpot(@Param("id") Long id);
+    
+    @Modifying
+    @Query("update ParkingSpot s set s.occupied = false where s.id = :id and s.occupied = true")
+    int releaseSpot(@Param("id") Long id);
 }
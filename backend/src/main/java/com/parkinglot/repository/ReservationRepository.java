@@ -0,0 +1,46 @@
+package com.parkinglot.repository;
+
+import com.parkinglot.dto.ReservationDTO;
+import com.parkinglot.dto.ReservationSlotDTO;
+import com.parkinglot.model.Reservation;
+import com.parkinglot.model.ReservationStatus;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+
+// Conflict checks go through ReservationIndex; these queries only load, list and change single reservations
+@Repository
+public interface ReservationRepository extends JpaRepository<Reservation, Long> {
+    
+    @Query("select r from Reservation r join fetch r.parkingSpot where r.id = :id and r.user.id = :userId")
+    Optional<Reservation> findByIdAndUserId(@Param("id") Long id, @Param("userId") Long userId);
+    
+    @Query("select new com.parkinglot.dto.ReservationDTO(r.id, r.garage.id, c.id, c.licensePlate, " +
+           "s.id, s.floor, s.spotNumber, r.startTime, r.endTime, r.status) " +
+           "from Reservation r join r.car c join r.parkingSpot s " +
+           "where r.user.id = :userId and r.status = com.parkinglot.model.ReservationStatus.BOOKED " +
+           "and r.endTime > :now order by r.startTime, r.id")
+    List<ReservationDTO> findUpcoming(@Param("userId") Long userId, @Param("now") LocalDateTime now);
+    
+    @Query("select new com.parkinglot.dto.ReservationSlotDTO(r.parkingSpot.id, r.startTime, r.endTime) " +
+           "from Reservation r where r.status = com.parkinglot.model.ReservationStatus.BOOKED and r.endTime > :now")
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    Stream<ReservationSlotDTO> streamBookedEndingAfter(@Param("now") LocalDateTime now);
+    
+    // Returns 1 only for the caller that moved the reservation out of BOOKED
+    @Modifying
+    @Query("update Reservation r set r.status = :status where r.id = :id " +
+           "and r.status = com.parkinglot.model.ReservationStatus.BOOKED")
+    int closeBooking(@Param("id") Long id, @Param("status") ReservationStatus status);
+}
@@ -1,7 +1,12 @@
 package com.parkinglot.repository;
 
+import com.parkinglot.dto.UserDTO;
 import com.parkinglot.model.User;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -10,4 +15,13 @@ import java.util.Optional;
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     boolean existsByEmail(String email);
+    
+    // Cached by email; evicted on registration
+    @Cacheable(cacheNames = "users", unless = "#result == null")
+    @Query("select new com.parkinglot.dto.UserDTO(u.id, u.firstName, u.lastName, u.email) from User u where u.email = :email")
+    UserDTO findProfileByEmail(@Param("email") String email);
+    
+    @Modifying
+    @Query("update User u set u.password = :password where u.email = :email")
+    int updatePassword(@Param("email") String email, @Param("password") String password);
 }
@@ -0,0 +1,20 @@
+package com.parkinglot.security;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import org.springframework.security.core.AuthenticatedPrincipal;
+
+/**
+ * Principal built from the JWT claims, so request handling never has to look the user up by email.
+ */
+@Data
+@AllArgsConstructor
+public class AuthenticatedUser implements AuthenticatedPrincipal {
+    private Long id;
+    private String email;
+    
+    @Override
+    public String getName() {
+        return email;
+    }
+}
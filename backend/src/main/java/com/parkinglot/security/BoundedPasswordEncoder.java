@@ -0,0 +1,109 @@
+package com.parkinglot.security;
+
+import com.parkinglot.service.LatencyMetrics;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs a delegate encoder's hashing and verification on a small pool sized to the CPUs, so a burst of
+ * logins or registrations cannot spend every request thread on BCrypt and starve parking traffic.
+ * When the pool and its queue are full the call fails at once with AUTH_BUSY (answered with 429)
+ * instead of waiting. As a {@link MeterBinder} it publishes hashing time, time spent queued for a
+ * hashing thread, rejections and the queue depth.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder, MeterBinder {
+    
+    public static final String BUSY = "AUTH_BUSY";
+    
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    
+    // Set once metrics are bound; calls before that are not recorded
+    private volatile Timer encodeTimer;
+    private volatile Timer matchesTimer;
+    private volatile Timer queueTimer;
+    private volatile Counter rejected;
+    
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int threads, int queueCapacity) {
+        this.delegate = delegate;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+    
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(() -> delegate.encode(rawPassword), encodeTimer);
+    }
+    
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> delegate.matches(rawPassword, encodedPassword), matchesTimer);
+    }
+    
+    // Only parses the stored hash, cheap enough for the calling thread
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+    
+    private <T> T run(Callable<T> task, Timer timer) {
+        long submitted = System.nanoTime();
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                long started = System.nanoTime();
+                try {
+                    return task.call();
+                } finally {
+                    if (timer != null) {
+                        queueTimer.record(started - submitted, TimeUnit.NANOSECONDS);
+                        timer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                    }
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            if (rejected != null) {
+                rejected.increment();
+            }
+            throw new RuntimeException(BUSY);
+        }
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(BUSY);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+    
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        queueTimer = LatencyMetrics.histogramTimer(registry, "auth.password.queued");
+        matchesTimer = LatencyMetrics.histogramTimer(registry, "auth.password.hashing", "operation", "matches");
+        encodeTimer = LatencyMetrics.histogramTimer(registry, "auth.password.hashing", "operation", "encode");
+        rejected = registry.counter("auth.password.rejected");
+        Gauge.builder("auth.password.queue.size", executor, e -> e.getQueue().size()).register(registry);
+        Gauge.builder("auth.password.active", executor, ThreadPoolExecutor::getActiveCount).register(registry);
+    }
+    
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -1,18 +1,21 @@
 package com.parkinglot.security;
 
+import com.parkinglot.dto.UserDTO;
 import com.parkinglot.model.User;
 import com.parkinglot.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
 
 @Service
 @RequiredArgsConstructor
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
     
     private final UserRepository userRepository;
     
@@ -27,4 +30,26 @@ public class CustomUserDetailsService implements UserDetailsService {
                 new ArrayList<>()
         );
     }
+    
+    public AuthenticatedUser loadAuthenticatedUser(String email) throws UsernameNotFoundException {
+        UserDTO user = userRepository.findProfileByEmail(email);
+        if (user == null) {
+            throw new UsernameNotFoundException("User not found with email: " + email);
+        }
+        
+        return new AuthenticatedUser(user.getId(), user.getEmail());
+    }
+    
+    /**
+     * Stores a password rehashed with the current BCrypt cost; called after a successful login whose
+     * stored hash used a lower one.
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        userRepository.updatePassword(user.getUsername(), newPassword);
+        return org.springframework.security.core.userdetails.User.withUserDetails(user)
+                .password(newPassword)
+                .build();
+    }
 }
@@ -1,18 +1,26 @@
 package com.parkinglot.security;
 
+import com.parkinglot.service.LatencyMetrics;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 @Component
 @RequiredArgsConstructor
@@ -20,6 +28,15 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
     
     private final JwtUtil jwtUtil;
     private final CustomUserDetailsService userDetailsService;
+    private final TokenRevocationService tokenRevocationService;
+    private final LatencyMetrics latencyMetrics;
+    
+    // When enabled, tokens carrying a user id are trusted without loading the user from the database
+    @Value("${jwt.stateless:true}")
+    private boolean stateless = true;
+    
+    @Value("${app.admin-emails:}")
+    private Set<String> adminEmails = Collections.emptySet();
     
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
@@ -27,28 +44,55 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         
         final String authorizationHeader = request.getHeader("Authorization");
         
-        String email = null;
-        String jwt = null;
-        
-        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")) {
-            jwt = authorizationHeader.substring(7);
-            try {
-                email = jwtUtil.extractEmail(jwt);
-            } catch (Exception e) {
-                // Invalid token
-            }
+        if (authorizationHeader != null && authorizationHeader.startsWith("Bearer ")
+                && SecurityContextHolder.getContext().getAuthentication() == null) {
+            long start = System.nanoTime();
+            boolean authenticated = authenticate(request, authorizationHeader.substring(7));
+            latencyMetrics.timer("auth.jwt", authenticated ? "authenticated" : "rejected")
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+        chain.doFilter(request, response);
+    }
+    
+    private boolean authenticate(HttpServletRequest request, String token) {
+        Claims claims;
+        try {
+            // Parsed once per request; repeated tokens are served from JwtUtil's cache
+            claims = jwtUtil.extractAllClaims(token);
+        } catch (Exception e) {
+            // Invalid token
+            return false;
         }
         
-        if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-            UserDetails userDetails = this.userDetailsService.loadUserByUsername(email);
-            
-            if (jwtUtil.validateToken(jwt, userDetails)) {
-                UsernamePasswordAuthenticationToken authenticationToken =
-                        new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
-                authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                SecurityContextHolder.getContext().setAuthentication(authenticationToken);
-            }
+        AuthenticatedUser principal = resolvePrincipal(claims);
+        if (principal == null) {
+            return false;
         }
-        chain.doFilter(request, response);
+        UsernamePasswordAuthenticationToken authenticationToken =
+                new UsernamePasswordAuthenticationToken(principal, null, authoritiesOf(principal));
+        authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+        SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+        return true;
+    }
+    
+    private List<GrantedAuthority> authoritiesOf(AuthenticatedUser principal) {
+        return adminEmails.contains(principal.getEmail())
+                ? List.of(new SimpleGrantedAuthority("ROLE_ADMIN"))
+                : Collections.emptyList();
+    }
+    
+    private AuthenticatedUser resolvePrincipal(Claims claims) {
+        // Tokens issued before user ids and versions were embedded cannot be checked for revocation
+        Long userId = jwtUtil.extractUserId(claims);
+        Integer tokenVersion = jwtUtil.extractTokenVersion(claims);
+        if (userId == null || tokenVersion == null || tokenRevocationService.isRevoked(userId, tokenVersion)) {
+            return null;
+        }
+        if (stateless) {
+            return new AuthenticatedUser(userId, claims.getSubject());
+        }
+        
+        // Stateless mode off: resolve the user from the database
+        return userDetailsService.loadAuthenticatedUser(claims.getSubject());
     }
 }
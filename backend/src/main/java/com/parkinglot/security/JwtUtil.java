@@ -1,9 +1,12 @@
 package com.parkinglot.security;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
@@ -11,20 +14,39 @@ import org.springframework.stereotype.Component;
 import javax.crypto.SecretKey;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 @Component
 public class JwtUtil {
     
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String TOKEN_VERSION_CLAIM = "ver";
+    
     @Value("${jwt.secret:mySecretKeyForJWTTokenGenerationThatIsLongEnoughToMeetRequirements}")
     private String secret;
     
     @Value("${jwt.expiration:86400000}") // 24 hours
     private Long expiration;
     
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+    // Upper bound on cached verified tokens; expired entries are dropped on access or when full
+    @Value("${jwt.cache.max-size:10000}")
+    private int cacheMaxSize = 10000;
+    
+    private SecretKey signingKey;
+    private JwtParser parser;
+    
+    // token -> claims of tokens whose signature has already been verified
+    private final Map<String, Claims> verifiedTokens = new ConcurrentHashMap<>();
+    
+    @PostConstruct
+    public void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes());
+        parser = Jwts.parser()
+                .verifyWith(signingKey)
+                .build();
     }
     
     public String extractEmail(String token) {
@@ -40,35 +62,77 @@ public class JwtUtil {
         return claimsResolver.apply(claims);
     }
     
-    private Claims extractAllClaims(String token) {
-        return Jwts.parser()
-                .verifyWith(getSigningKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+    /**
+     * Returns the verified claims of a token. The signature is checked once per token; later calls
+     * are served from a bounded cache until the token expires.
+     */
+    public Claims extractAllClaims(String token) {
+        Claims claims = verifiedTokens.get(token);
+        if (claims != null) {
+            if (isExpired(claims)) {
+                verifiedTokens.remove(token);
+                throw new ExpiredJwtException(null, claims, "JWT expired at " + claims.getExpiration());
+            }
+            return claims;
+        }
+        
+        claims = parser.parseSignedClaims(token).getPayload();
+        if (verifiedTokens.size() >= cacheMaxSize) {
+            evictEntries();
+        }
+        verifiedTokens.put(token, claims);
+        return claims;
+    }
+    
+    private void evictEntries() {
+        verifiedTokens.values().removeIf(this::isExpired);
+        // Still full of live tokens: drop an arbitrary tenth rather than grow past the bound
+        Iterator<String> it = verifiedTokens.keySet().iterator();
+        int toRemove = verifiedTokens.size() - cacheMaxSize * 9 / 10;
+        while (toRemove-- > 0 && it.hasNext()) {
+            it.next();
+            it.remove();
+        }
     }
     
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    private boolean isExpired(Claims claims) {
+        return claims.getExpiration().before(new Date());
     }
     
-    public String generateToken(String email) {
+    /**
+     * Token carrying the user id and token version, so requests can be authenticated without a user lookup.
+     */
+    public String generateToken(Long userId, String email, int tokenVersion) {
         Map<String, Object> claims = new HashMap<>();
+        claims.put(USER_ID_CLAIM, userId);
+        claims.put(TOKEN_VERSION_CLAIM, tokenVersion);
         return createToken(claims, email);
     }
     
+    public Long extractUserId(Claims claims) {
+        return claims.get(USER_ID_CLAIM, Long.class);
+    }
+    
+    // Null for tokens issued without a version
+    public Integer extractTokenVersion(Claims claims) {
+        return claims.get(TOKEN_VERSION_CLAIM, Integer.class);
+    }
+    
     private String createToken(Map<String, Object> claims, String subject) {
         return Jwts.builder()
                 .setClaims(claims)
                 .setSubject(subject)
                 .setIssuedAt(new Date(System.currentTimeMillis()))
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
     
     public Boolean validateToken(String token, UserDetails userDetails) {
-        final String email = extractEmail(token);
-        return (email.equals(userDetails.getUsername()) && !isTokenExpired(token));
+        return validateToken(extractAllClaims(token), userDetails);
+    }
+    
+    public Boolean validateToken(Claims claims, UserDetails userDetails) {
+        return (claims.getSubject().equals(userDetails.getUsername()) && !isExpired(claims));
     }
 }
@@ -0,0 +1,64 @@
+package com.parkinglot.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Authenticates gate and occupancy sensors by the API key they send in the X-Sensor-Key header.
+ * They get ROLE_SENSOR, which is all /api/sensors/** accepts. The key is only looked at on those
+ * endpoints: elsewhere a sensor would pass as authenticated without the user principal they expect.
+ */
+@Component
+public class SensorApiKeyFilter extends OncePerRequestFilter {
+    
+    public static final String API_KEY_HEADER = "X-Sensor-Key";
+    
+    private static final RequestMatcher SENSOR_ENDPOINTS = new AntPathRequestMatcher("/api/sensors/**");
+    
+    @Value("${sensors.api-keys:}")
+    private Set<String> apiKeys = Collections.emptySet();
+    
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !SENSOR_ENDPOINTS.matches(request);
+    }
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        
+        String apiKey = request.getHeader(API_KEY_HEADER);
+        if (apiKey != null && SecurityContextHolder.getContext().getAuthentication() == null && isKnown(apiKey)) {
+            SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken(
+                    "sensor", null, List.of(new SimpleGrantedAuthority("ROLE_SENSOR"))));
+        }
+        chain.doFilter(request, response);
+    }
+    
+    private boolean isKnown(String apiKey) {
+        byte[] candidate = apiKey.getBytes(StandardCharsets.UTF_8);
+        boolean known = false;
+        for (String key : apiKeys) {
+            // Constant-time comparison, checked against every key
+            known |= !key.isEmpty() && MessageDigest.isEqual(candidate, key.getBytes(StandardCharsets.UTF_8));
+        }
+        return known;
+    }
+}
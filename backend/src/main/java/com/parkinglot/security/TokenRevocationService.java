@@ -0,0 +1,29 @@
+package com.parkinglot.security;
+
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-user token versions. Every token carries the version it was issued with; bumping the version
+ * revokes all tokens issued before. Kept in memory only: after a restart, or on another instance,
+ * tokens revoked by logout are accepted again until they expire.
+ */
+@Service
+public class TokenRevocationService {
+    
+    private final Map<Long, Integer> tokenVersions = new ConcurrentHashMap<>();
+    
+    public int currentVersion(Long userId) {
+        return tokenVersions.getOrDefault(userId, 0);
+    }
+    
+    public boolean isRevoked(Long userId, int tokenVersion) {
+        return tokenVersion < currentVersion(userId);
+    }
+    
+    public void revokeAll(Long userId) {
+        tokenVersions.merge(userId, 1, Integer::sum);
+    }
+}
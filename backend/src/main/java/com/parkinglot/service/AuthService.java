@@ -4,12 +4,14 @@ import com.parkinglot.dto.*;
 import com.parkinglot.model.User;
 import com.parkinglot.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
 import com.parkinglot.security.JwtUtil;
+import com.parkinglot.security.TokenRevocationService;
 
 @Service
 @RequiredArgsConstructor
@@ -19,7 +21,10 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final JwtUtil jwtUtil;
     private final AuthenticationManager authenticationManager;
+    private final TokenRevocationService tokenRevocationService;
     
+    // Nothing is cached for an unknown email today; evicting keeps it that way if that ever changes
+    @CacheEvict(cacheNames = "users", key = "#request.email")
     public AuthResponse register(RegisterRequest request) {
         // Check if email already exists
         if (userRepository.existsByEmail(request.getEmail())) {
@@ -36,7 +41,7 @@ public class AuthService {
         user = userRepository.save(user);
         
         // Generate token
-        String token = jwtUtil.generateToken(user.getEmail());
+        String token = generateToken(user.getId(), user.getEmail());
         
         // Create response
         UserDTO userDTO = new UserDTO(user.getId(), user.getFirstName(), user.getLastName(), user.getEmail());
@@ -49,21 +54,29 @@ public class AuthService {
                 new UsernamePasswordAuthenticationToken(request.getEmail(), request.getPassword())
         );
         
-        // Get user
-        User user = userRepository.findByEmail(request.getEmail())
-                .orElseThrow(() -> new RuntimeException("INVALID_CREDENTIALS"));
+        // Get user (served from the user cache)
+        UserDTO userDTO = userRepository.findProfileByEmail(request.getEmail());
+        if (userDTO == null) {
+            throw new RuntimeException("INVALID_CREDENTIALS");
+        }
         
         // Generate token
-        String token = jwtUtil.generateToken(user.getEmail());
-        
-        // Create response
-        UserDTO userDTO = new UserDTO(user.getId(), user.getFirstName(), user.getLastName(), user.getEmail());
+        String token = generateToken(userDTO.getId(), userDTO.getEmail());
         return new AuthResponse(token, userDTO);
     }
     
-    public UserDTO getCurrentUser(String email) {
-        User user = userRepository.findByEmail(email)
+    public UserDTO getCurrentUser(Long userId) {
+        User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         return new UserDTO(user.getId(), user.getFirstName(), user.getLastName(), user.getEmail());
     }
+    
+    public void logout(Long userId) {
+        // Invalidates every token issued to the user so far
+        tokenRevocationService.revokeAll(userId);
+    }
+    
+    private String generateToken(Long userId, String email) {
+        return jwtUtil.generateToken(userId, email, tokenRevocationService.currentVersion(userId));
+    }
 }
@@ -0,0 +1,124 @@
+package com.parkinglot.service;
+
+import com.parkinglot.config.TariffProperties;
+import com.parkinglot.dto.RerateReport;
+import com.parkinglot.dto.SessionRatingDTO;
+import com.parkinglot.repository.ParkingSessionHistoryRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Prices sessions against the compiled Tariff: once when a session is closed, and again in bulk
+ * when a month of history is re-rated.
+ */
+@Service
+@RequiredArgsConstructor
+public class BillingService {
+    
+    private final TariffProperties tariffProperties;
+    private final ParkingSessionHistoryRepository parkingSessionHistoryRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    
+    // Sessions loaded, priced and written per transaction while re-rating; bounds memory use
+    @Value("${parking.billing.rerate-chunk-size:10000}")
+    private int chunkSize = 10000;
+    
+    // Pricing threads for re-rating; 0 = one per CPU
+    @Value("${parking.billing.parallelism:0}")
+    private int parallelism = 0;
+    
+    private Tariff tariff;
+    private ForkJoinPool pricingPool;
+    
+    @PostConstruct
+    public void init() {
+        tariff = new Tariff(tariffProperties);
+        pricingPool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        pricingPool.shutdownNow();
+    }
+    
+    public long price(int floor, LocalDateTime start, LocalDateTime end) {
+        return tariff.price(floor, start, end);
+    }
+    
+    /**
+     * Reprices every archived session of a month (yyyymm), optionally for one garage. The month is read
+     * in id-ordered chunks; each chunk is priced in parallel on the fork-join pool and the changed
+     * charges are written back as one JDBC batch in the same transaction before the next chunk is loaded.
+     */
+    public RerateReport rerate(int month, Long garageId) {
+        long started = System.nanoTime();
+        long sessions = 0;
+        long totalCents = 0;
+        long afterId = 0;
+        
+        while (true) {
+            long lastId = afterId;
+            long[] chunk = transactionTemplate.execute(status -> rerateChunk(month, garageId, lastId));
+            if (chunk[0] == 0) {
+                break;
+            }
+            sessions += chunk[0];
+            totalCents += chunk[1];
+            afterId = chunk[2];
+            if (chunk[0] < chunkSize) {
+                break;
+            }
+        }
+        
+        long durationMs = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+        return new RerateReport(month, sessions, totalCents, durationMs, sessions * 1000 / durationMs);
+    }
+    
+    // Returns {sessions, total cents, last id}
+    private long[] rerateChunk(int month, Long garageId, long afterId) {
+        List<SessionRatingDTO> chunk =
+                parkingSessionHistoryRepository.findForRerate(month, garageId, afterId, Limit.of(chunkSize));
+        if (chunk.isEmpty()) {
+            return new long[]{0, 0, afterId};
+        }
+        
+        long[] amounts = new long[chunk.size()];
+        try {
+            pricingPool.submit(() -> IntStream.range(0, amounts.length).parallel().forEach(i -> {
+                SessionRatingDTO session = chunk.get(i);
+                amounts[i] = tariff.price(session.getFloor(), session.getStartTime(), session.getEndTime());
+            })).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("RERATE_INTERRUPTED");
+        } catch (ExecutionException e) {
+            throw new RuntimeException("RERATE_FAILED", e.getCause());
+        }
+        
+        // Only rows whose charge actually changed are written
+        List<Object[]> changed = new ArrayList<>();
+        long totalCents = 0;
+        for (int i = 0; i < amounts.length; i++) {
+            totalCents += amounts[i];
+            if (!Long.valueOf(amounts[i]).equals(chunk.get(i).getAmountCents())) {
+                changed.add(new Object[]{amounts[i], chunk.get(i).getId()});
+            }
+        }
+        jdbcTemplate.batchUpdate("update parking_session_history set amount_cents = ? where id = ?", changed);
+        return new long[]{chunk.size(), totalCents, chunk.get(chunk.size() - 1).getId()};
+    }
+}
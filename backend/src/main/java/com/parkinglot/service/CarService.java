@@ -7,6 +7,9 @@ import com.parkinglot.model.User;
 import com.parkinglot.repository.CarRepository;
 import com.parkinglot.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -19,18 +22,17 @@ public class CarService {
     private final CarRepository carRepository;
     private final UserRepository userRepository;
     
-    public List<CarDTO> getUserCars(String email) {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        
-        return carRepository.findByUser(user).stream()
+    @Cacheable(cacheNames = "userCars", key = "#userId")
+    public List<CarDTO> getUserCars(Long userId) {
+        return carRepository.findByUserId(userId).stream()
                 .map(this::convertToDTO)
                 .collect(Collectors.toList());
     }
     
-    public CarDTO addCar(String email, CarRequest request) {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+    @CacheEvict(cacheNames = "userCars", key = "#userId")
+    public CarDTO addCar(Long userId, CarRequest request) {
+        // Reference only: the authenticated user id is trusted, no need to load the row
+        User user = userRepository.getReferenceById(userId);
         
         Car car = new Car();
         car.setMake(request.getMake());
@@ -43,11 +45,12 @@ public class CarService {
         return convertToDTO(car);
     }
     
-    public void deleteCar(String email, Long carId) {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        
-        Car car = carRepository.findByIdAndUser(carId, user)
+    @Caching(evict = {
+            @CacheEvict(cacheNames = "userCars", key = "#userId"),
+            @CacheEvict(cacheNames = "cars", key = "#carId")
+    })
+    public void deleteCar(Long userId, Long carId) {
+        Car car = carRepository.findByIdAndUserId(carId, userId)
                 .orElseThrow(() -> new RuntimeException("CAR_NOT_FOUND"));
         
         carRepository.delete(car);
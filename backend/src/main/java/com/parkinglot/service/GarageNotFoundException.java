@@ -0,0 +1,12 @@
+package com.parkinglot.service;
+
+/**
+ * Thrown when a garage id (or the default garage code) does not match any garage. Carries the same
+ * "Garage not found" message the controllers report.
+ */
+public class GarageNotFoundException extends RuntimeException {
+    
+    public GarageNotFoundException() {
+        super("Garage not found");
+    }
+}
@@ -0,0 +1,81 @@
+package com.parkinglot.service;
+
+import com.parkinglot.dto.GarageLayoutRequest;
+import com.parkinglot.dto.ParkingSpotDTO;
+import com.parkinglot.dto.ProvisioningReport;
+import com.parkinglot.model.Garage;
+import com.parkinglot.model.ParkingSpot;
+import com.parkinglot.repository.GarageRepository;
+import com.parkinglot.repository.ParkingSpotRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Creates parking spots in bulk. Spots use pooled sequence ids, so Hibernate can send the inserts
+ * as JDBC batches (hibernate.jdbc.batch_size) instead of one round-trip per spot.
+ */
+@Service
+@RequiredArgsConstructor
+public class GarageProvisioningService {
+    
+    private final ParkingSpotRepository parkingSpotRepository;
+    private final GarageRepository garageRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final SpotAllocator spotAllocator;
+    private final OccupancyCounters occupancyCounters;
+    
+    // Flush and clear the persistence context every this many spots to keep memory flat
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:500}")
+    private int batchSize = 500;
+    
+    public ProvisioningReport provision(Long garageId, GarageLayoutRequest layout) {
+        long started = System.nanoTime();
+        
+        List<ParkingSpotDTO> created = new ArrayList<>();
+        long skipped = transactionTemplate.execute(status -> {
+            Garage garage = garageRepository.getReferenceById(garageId);
+            long skippedSpots = 0;
+            for (GarageLayoutRequest.FloorLayout floor : layout.getFloors()) {
+                Set<Integer> existing = new HashSet<>(parkingSpotRepository.findSpotNumbersByFloor(garageId, floor.getFloor()));
+                for (int spotNumber = 1; spotNumber <= floor.getSpots(); spotNumber++) {
+                    if (existing.contains(spotNumber)) {
+                        skippedSpots++;
+                        continue;
+                    }
+                    ParkingSpot spot = new ParkingSpot();
+                    spot.setGarage(garage);
+                    spot.setFloor(floor.getFloor());
+                    spot.setSpotNumber(spotNumber);
+                    spot.setOccupied(false);
+                    entityManager.persist(spot);
+                    created.add(new ParkingSpotDTO(spot.getId(), spot.getFloor(), spotNumber, false));
+                    if (created.size() % batchSize == 0) {
+                        entityManager.flush();
+                        entityManager.clear();
+                        garage = garageRepository.getReferenceById(garageId);
+                    }
+                }
+            }
+            return skippedSpots;
+        });
+        
+        // New spots become available to auto-assignment and the occupancy summary. They are added to the
+        // free index rather than reloading it, which would drop in-flight counts and re-add spots claimed
+        // by transactions that have not committed yet
+        spotAllocator.addFree(garageId, created);
+        occupancyCounters.reconcile(garageId);
+        
+        long durationMs = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+        return new ProvisioningReport(layout.getFloors().size(), (long) created.size(), skipped, durationMs,
+                created.size() * 1000L / durationMs);
+    }
+}
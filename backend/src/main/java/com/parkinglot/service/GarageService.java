@@ -0,0 +1,94 @@
+package com.parkinglot.service;
+
+import com.parkinglot.dto.GarageDTO;
+import com.parkinglot.dto.GarageRequest;
+import com.parkinglot.model.Garage;
+import com.parkinglot.repository.GarageRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+@RequiredArgsConstructor
+public class GarageService {
+    
+    private final GarageRepository garageRepository;
+    
+    // Garage used by the endpoints that do not name one
+    @Value("${parking.default-garage-code:main}")
+    private String defaultGarageCode = "main";
+    
+    // Ids already known to exist, so resolving a garage does not cost a query per request
+    private final Set<Long> knownGarageIds = ConcurrentHashMap.newKeySet();
+    private volatile Long defaultGarageId;
+    
+    public List<GarageDTO> getGarages() {
+        return garageRepository.findAll().stream()
+                .map(this::convertToDTO)
+                .toList();
+    }
+    
+    public List<Long> getGarageIds() {
+        return garageRepository.findAll().stream()
+                .map(Garage::getId)
+                .toList();
+    }
+    
+    @Transactional
+    public GarageDTO createGarage(GarageRequest request) {
+        if (garageRepository.existsByCode(request.getCode())) {
+            throw new RuntimeException("GARAGE_EXISTS");
+        }
+        
+        Garage garage = new Garage();
+        garage.setCode(request.getCode());
+        garage.setName(request.getName());
+        garage = garageRepository.save(garage);
+        return convertToDTO(garage);
+    }
+    
+    /**
+     * Returns the default garage, creating it on first start.
+     */
+    @Transactional
+    public Garage getOrCreateDefaultGarage() {
+        return garageRepository.findByCode(defaultGarageCode).orElseGet(() -> {
+            Garage garage = new Garage();
+            garage.setCode(defaultGarageCode);
+            garage.setName("Main Garage");
+            return garageRepository.save(garage);
+        });
+    }
+    
+    /**
+     * Maps an optional garage id from a request to an existing garage id; no id means the default garage.
+     */
+    public Long resolveGarageId(Long garageId) {
+        if (garageId == null) {
+            Long id = defaultGarageId;
+            if (id == null) {
+                id = garageRepository.findByCode(defaultGarageCode)
+                        .map(Garage::getId)
+                        .orElseThrow(() -> new GarageNotFoundException());
+                defaultGarageId = id;
+            }
+            return id;
+        }
+        if (!knownGarageIds.contains(garageId)) {
+            if (!garageRepository.existsById(garageId)) {
+                throw new GarageNotFoundException();
+            }
+            knownGarageIds.add(garageId);
+        }
+        return garageId;
+    }
+    
+    private GarageDTO convertToDTO(Garage garage) {
+        return new GarageDTO(garage.getId(), garage.getCode(), garage.getName());
+    }
+}
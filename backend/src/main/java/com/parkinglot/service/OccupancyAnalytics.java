@@ -0,0 +1,344 @@
+package com.parkinglot.service;
+
+import com.parkinglot.dto.AnalyticsBackfillReport;
+import com.parkinglot.dto.FloorAnalyticsDTO;
+import com.parkinglot.dto.FloorOccupancyDTO;
+import com.parkinglot.dto.OccupancyHeatmapDTO;
+import com.parkinglot.dto.OccupancyPointDTO;
+import com.parkinglot.dto.SessionClosedEvent;
+import com.parkinglot.dto.SessionSpanDTO;
+import com.parkinglot.repository.ParkingSessionHistoryRepository;
+import com.parkinglot.repository.ParkingSessionRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.DayOfWeek;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Occupancy curves, dwell times, turnover and weekly heatmaps per garage and floor, served from hourly
+ * buckets in memory (see OccupancySeries) instead of grouping session history in the database. Every
+ * committed session close is added to the buckets; a backfill rebuilds them from parking_sessions and
+ * parking_session_history, one archive month per task on a fork-join pool. Sessions still active are
+ * not counted until they close; current occupancy comes from OccupancyCounters.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OccupancyAnalytics {
+    
+    private static final int HOURS_PER_WEEK = 7 * 24;
+    
+    private final ParkingSessionRepository parkingSessionRepository;
+    private final ParkingSessionHistoryRepository parkingSessionHistoryRepository;
+    private final OccupancyCounters occupancyCounters;
+    
+    // Buckets older than this are dropped, and queries may not reach further back
+    @Value("${analytics.retention-days:400}")
+    private int retentionDays = 400;
+    
+    @Value("${analytics.backfill.on-startup:true}")
+    private boolean backfillOnStartup = true;
+    
+    // Sessions loaded per query while backfilling
+    @Value("${analytics.backfill.chunk-size:10000}")
+    private int chunkSize = 10000;
+    
+    // Backfill threads; 0 = one per CPU
+    @Value("${analytics.backfill.parallelism:0}")
+    private int parallelism = 0;
+    
+    // garage id -> floor -> buckets
+    private volatile Map<Long, Map<Integer, OccupancySeries>> garages = new ConcurrentHashMap<>();
+    // Set while a backfill runs: sessions closing from its cutoff on are added to the new buckets too
+    private volatile Rebuild rebuild;
+    // Held by the running backfill; a second one is refused rather than queued behind it
+    private final ReentrantLock backfillLock = new ReentrantLock();
+    private ForkJoinPool backfillPool;
+    
+    @PostConstruct
+    public void init() {
+        backfillPool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        backfillPool.shutdownNow();
+    }
+    
+    @TransactionalEventListener
+    public void onSessionClosed(SessionClosedEvent event) {
+        // Read in the opposite order of the swap in runBackfill, which publishes the new buckets before it
+        // clears the rebuild: once the rebuild is gone the new buckets are seen, and while it is still set
+        // but already swapped in the session is not added to them twice
+        Rebuild current = rebuild;
+        Map<Long, Map<Integer, OccupancySeries>> target = garages;
+        add(target, event.getGarageId(), event.getFloor(), event.getStartTime(), event.getEndTime());
+        if (current != null && current.garages != target && !event.getEndTime().isBefore(current.cutoff)) {
+            add(current.garages, event.getGarageId(), event.getFloor(), event.getStartTime(), event.getEndTime());
+        }
+    }
+    
+    // Runs on the backfill pool so startup does not wait for it; queries see empty buckets until it is done
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillAtStartup() {
+        if (backfillOnStartup) {
+            backfillPool.execute(() -> {
+                try {
+                    AnalyticsBackfillReport report = backfill();
+                    log.info("Backfilled occupancy analytics from {} sessions in {} ms", report.getSessions(), report.getDurationMs());
+                } catch (RuntimeException e) {
+                    log.warn("Occupancy analytics backfill at startup failed: {}", e.getMessage(), e);
+                }
+            });
+        }
+    }
+    
+    /**
+     * Rebuilds the buckets from every closed session within the retention period and swaps them in.
+     * Each archive month, and the closed sessions not archived yet, is scanned by its own task. A session
+     * closing or being archived just as the backfill scans it can be counted twice or not at all.
+     * Fails with BACKFILL_RUNNING while another backfill is in progress.
+     */
+    public AnalyticsBackfillReport backfill() {
+        if (!backfillLock.tryLock()) {
+            throw new RuntimeException("BACKFILL_RUNNING");
+        }
+        try {
+            return runBackfill();
+        } finally {
+            backfillLock.unlock();
+        }
+    }
+    
+    private AnalyticsBackfillReport runBackfill() {
+        long started = System.nanoTime();
+        Rebuild current = new Rebuild(new ConcurrentHashMap<>(), LocalDateTime.now());
+        rebuild = current;
+        try {
+            LocalDateTime since = current.cutoff.minusDays(retentionDays);
+            List<Callable<Long>> tasks = new ArrayList<>();
+            for (Integer month : parkingSessionHistoryRepository.findArchiveMonthsFrom(since.getYear() * 100 + since.getMonthValue())) {
+                tasks.add(() -> scan(current, afterId -> parkingSessionHistoryRepository.findSpans(month, afterId, Limit.of(chunkSize))));
+            }
+            tasks.add(() -> scan(current, afterId -> parkingSessionRepository.findClosedSpans(afterId, Limit.of(chunkSize))));
+            
+            long sessions = 0;
+            for (Future<Long> task : backfillPool.invokeAll(tasks)) {
+                sessions += task.get();
+            }
+            prune(current.garages, hourOf(since));
+            // Must happen before the rebuild is cleared below, see onSessionClosed
+            garages = current.garages;
+            
+            long durationMs = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+            return new AnalyticsBackfillReport(sessions, tasks.size(), durationMs, sessions * 1000 / durationMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("BACKFILL_INTERRUPTED");
+        } catch (ExecutionException e) {
+            throw new RuntimeException("BACKFILL_FAILED", e.getCause());
+        } finally {
+            rebuild = null;
+        }
+    }
+    
+    // Adds one partition to the rebuild through task-local buckets, so the workers never share a lock
+    private long scan(Rebuild target, Function<Long, List<SessionSpanDTO>> nextChunk) {
+        Map<Long, Map<Integer, OccupancySeries>> local = new ConcurrentHashMap<>();
+        long sessions = 0;
+        long afterId = 0;
+        List<SessionSpanDTO> chunk;
+        do {
+            chunk = nextChunk.apply(afterId);
+            for (SessionSpanDTO span : chunk) {
+                if (span.getEndTime().isBefore(target.cutoff)) {
+                    add(local, span.getGarageId(), span.getFloor(), span.getStartTime(), span.getEndTime());
+                    sessions++;
+                }
+            }
+            if (!chunk.isEmpty()) {
+                afterId = chunk.get(chunk.size() - 1).getId();
+            }
+        } while (chunk.size() == chunkSize);
+        
+        local.forEach((garageId, floors) -> floors.forEach((floor, series) ->
+                seriesIn(target.garages, garageId, floor).addAll(series)));
+        return sessions;
+    }
+    
+    @Scheduled(fixedDelayString = "${analytics.prune-interval-ms:3600000}",
+            initialDelayString = "${analytics.prune-interval-ms:3600000}")
+    public void prune() {
+        prune(garages, hourOf(LocalDateTime.now().minusDays(retentionDays)));
+    }
+    
+    private void prune(Map<Long, Map<Integer, OccupancySeries>> target, long beforeHour) {
+        target.values().forEach(floors -> floors.values().forEach(series -> series.dropBefore(beforeHour)));
+    }
+    
+    /**
+     * Hour by hour from {@code from} (inclusive) to {@code to} (exclusive), both truncated to the hour,
+     * for one floor or the whole garage.
+     */
+    public List<OccupancyPointDTO> getOccupancyCurve(Long garageId, Integer floor, LocalDateTime from, LocalDateTime to) {
+        long fromHour = hourOf(from);
+        int hours = checkRange(from, to);
+        long[] occupiedSeconds = new long[hours];
+        int[] arrivals = new int[hours];
+        int[] departures = new int[hours];
+        for (OccupancySeries series : seriesOf(garageId, floor)) {
+            series.forEachHour(fromHour, fromHour + hours, (hour, occupied, arrived, departed, dwell) -> {
+                int i = (int) (hour - fromHour);
+                occupiedSeconds[i] += occupied;
+                arrivals[i] += arrived;
+                departures[i] += departed;
+            });
+        }
+        
+        List<OccupancyPointDTO> curve = new ArrayList<>(hours);
+        for (int i = 0; i < hours; i++) {
+            curve.add(new OccupancyPointDTO(timeOf(fromHour + i),
+                    (double) occupiedSeconds[i] / OccupancySeries.SECONDS_PER_HOUR, arrivals[i], departures[i]));
+        }
+        return curve;
+    }
+    
+    /**
+     * Per floor: sessions that ended in the range, their average dwell time, the share of spot-hours
+     * occupied and departures per spot per day. Spot counts are the current ones.
+     */
+    public List<FloorAnalyticsDTO> getFloorSummary(Long garageId, LocalDateTime from, LocalDateTime to) {
+        long fromHour = hourOf(from);
+        int hours = checkRange(from, to);
+        Map<Integer, Long> totalSpots = new TreeMap<>();
+        for (FloorOccupancyDTO floor : occupancyCounters.getSummary(garageId)) {
+            totalSpots.put(floor.getFloor(), floor.getTotalSpots());
+        }
+        Map<Integer, OccupancySeries> floors = garages.getOrDefault(garageId, Map.of());
+        floors.keySet().forEach(floor -> totalSpots.putIfAbsent(floor, 0L));
+        
+        List<FloorAnalyticsDTO> summary = new ArrayList<>(totalSpots.size());
+        totalSpots.forEach((floor, spots) -> {
+            // occupied seconds, departures, dwell seconds
+            long[] totals = new long[3];
+            OccupancySeries series = floors.get(floor);
+            if (series != null) {
+                series.forEachHour(fromHour, fromHour + hours, (hour, occupied, arrived, departed, dwell) -> {
+                    totals[0] += occupied;
+                    totals[1] += departed;
+                    totals[2] += dwell;
+                });
+            }
+            double days = hours / 24.0;
+            summary.add(new FloorAnalyticsDTO(floor, spots, totals[1],
+                    totals[1] > 0 ? totals[2] / 60.0 / totals[1] : 0.0,
+                    spots > 0 ? (double) totals[0] / (spots * hours * (long) OccupancySeries.SECONDS_PER_HOUR) : 0.0,
+                    spots > 0 ? totals[1] / (spots * days) : 0.0));
+        });
+        return summary;
+    }
+    
+    /**
+     * Averages per day of week and hour of day over the range, for one floor or the whole garage.
+     */
+    public OccupancyHeatmapDTO getHeatmap(Long garageId, Integer floor, LocalDateTime from, LocalDateTime to) {
+        long fromHour = hourOf(from);
+        int hours = checkRange(from, to);
+        // Indexed by hour of the week, Monday 00:00 first
+        long[] occupiedSeconds = new long[HOURS_PER_WEEK];
+        long[] arrivals = new long[HOURS_PER_WEEK];
+        int[] samples = new int[HOURS_PER_WEEK];
+        for (long hour = fromHour; hour < fromHour + hours; hour++) {
+            samples[hourOfWeek(hour)]++;
+        }
+        for (OccupancySeries series : seriesOf(garageId, floor)) {
+            series.forEachHour(fromHour, fromHour + hours, (hour, occupied, arrived, departed, dwell) -> {
+                int i = hourOfWeek(hour);
+                occupiedSeconds[i] += occupied;
+                arrivals[i] += arrived;
+            });
+        }
+        
+        double[][] averageOccupied = new double[7][24];
+        double[][] averageArrivals = new double[7][24];
+        int peak = 0;
+        for (int i = 0; i < HOURS_PER_WEEK; i++) {
+            if (samples[i] > 0) {
+                averageOccupied[i / 24][i % 24] = (double) occupiedSeconds[i] / OccupancySeries.SECONDS_PER_HOUR / samples[i];
+                averageArrivals[i / 24][i % 24] = (double) arrivals[i] / samples[i];
+            }
+            if (averageOccupied[i / 24][i % 24] > averageOccupied[peak / 24][peak % 24]) {
+                peak = i;
+            }
+        }
+        return new OccupancyHeatmapDTO(timeOf(fromHour), timeOf(fromHour + hours), floor,
+                averageOccupied, averageArrivals, DayOfWeek.of(peak / 24 + 1), peak % 24);
+    }
+    
+    private Collection<OccupancySeries> seriesOf(Long garageId, Integer floor) {
+        Map<Integer, OccupancySeries> floors = garages.getOrDefault(garageId, Map.of());
+        if (floor == null) {
+            return floors.values();
+        }
+        OccupancySeries series = floors.get(floor);
+        return series != null ? List.of(series) : List.of();
+    }
+    
+    // Returns the number of hours in the range
+    private int checkRange(LocalDateTime from, LocalDateTime to) {
+        long hours = hourOf(to) - hourOf(from);
+        if (hours <= 0 || hours > (retentionDays + 1) * 24L) {
+            throw new RuntimeException("INVALID_RANGE");
+        }
+        return (int) hours;
+    }
+    
+    private static void add(Map<Long, Map<Integer, OccupancySeries>> target, Long garageId, Integer floor,
+                            LocalDateTime start, LocalDateTime end) {
+        seriesIn(target, garageId, floor).add(start.toEpochSecond(ZoneOffset.UTC), end.toEpochSecond(ZoneOffset.UTC));
+    }
+    
+    private static OccupancySeries seriesIn(Map<Long, Map<Integer, OccupancySeries>> target, Long garageId, Integer floor) {
+        return target.computeIfAbsent(garageId, id -> new ConcurrentHashMap<>())
+                .computeIfAbsent(floor, f -> new OccupancySeries());
+    }
+    
+    private static long hourOf(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), OccupancySeries.SECONDS_PER_HOUR);
+    }
+    
+    private static LocalDateTime timeOf(long hour) {
+        return LocalDateTime.ofEpochSecond(hour * OccupancySeries.SECONDS_PER_HOUR, 0, ZoneOffset.UTC);
+    }
+    
+    // 1970-01-01 was a Thursday, so day 0 is index 3 when Monday is 0
+    private static int hourOfWeek(long hour) {
+        return (int) Math.floorMod(hour + 3 * 24, HOURS_PER_WEEK);
+    }
+    
+    private record Rebuild(Map<Long, Map<Integer, OccupancySeries>> garages, LocalDateTime cutoff) {
+    }
+}
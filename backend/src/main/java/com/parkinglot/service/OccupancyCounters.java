@@ -0,0 +1,125 @@
+package com.parkinglot.service;
+
+import com.parkinglot.dto.FloorOccupancyDTO;
+import com.parkinglot.dto.SpotStatusEvent;
+import com.parkinglot.repository.ParkingSpotRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * Free/total spot counts per garage and floor, updated on every committed park/leave and periodically
+ * reconciled against parking_spots, one garage at a time. Reads never touch the database. Each floor's
+ * counts are also published as the parking.spots.free / parking.spots.total gauges.
+ */
+@Service
+@RequiredArgsConstructor
+public class OccupancyCounters {
+    
+    private final ParkingSpotRepository parkingSpotRepository;
+    private final GarageService garageService;
+    private final MeterRegistry meterRegistry;
+    
+    // garage id -> (floor -> counter)
+    private final Map<Long, ConcurrentSkipListMap<Integer, FloorCounter>> garages = new ConcurrentHashMap<>();
+    
+    @TransactionalEventListener
+    public void onSpotStatusChanged(SpotStatusEvent event) {
+        FloorCounter counter = floorOf(event.getGarageId(), event.getFloor());
+        if (event.getOccupied()) {
+            counter.free.decrement();
+        } else {
+            counter.free.increment();
+        }
+    }
+    
+    /**
+     * Resets the counters from the database. A park/leave committing while this runs can be
+     * counted twice or not at all; the next run corrects it.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${parking.occupancy.reconcile-interval-ms:60000}",
+            initialDelayString = "${parking.occupancy.reconcile-interval-ms:60000}")
+    public void reconcile() {
+        for (Long garageId : garageService.getGarageIds()) {
+            reconcile(garageId);
+        }
+    }
+    
+    public void reconcile(Long garageId) {
+        List<FloorOccupancyDTO> counts = parkingSpotRepository.countByFloor(garageId);
+        ConcurrentSkipListMap<Integer, FloorCounter> floors = floorsOf(garageId);
+        List<Integer> existing = counts.stream().map(FloorOccupancyDTO::getFloor).toList();
+        for (Iterator<Map.Entry<Integer, FloorCounter>> it = floors.entrySet().iterator(); it.hasNext(); ) {
+            Map.Entry<Integer, FloorCounter> entry = it.next();
+            if (!existing.contains(entry.getKey())) {
+                it.remove();
+                Tags tags = Tags.of("garage", String.valueOf(garageId), "floor", String.valueOf(entry.getKey()));
+                meterRegistry.find("parking.spots.free").tags(tags).meters().forEach(meterRegistry::remove);
+                meterRegistry.find("parking.spots.total").tags(tags).meters().forEach(meterRegistry::remove);
+            }
+        }
+        for (FloorOccupancyDTO count : counts) {
+            FloorCounter counter = floorOf(garageId, count.getFloor());
+            counter.total = count.getTotalSpots();
+            counter.free.reset();
+            counter.free.add(count.getFreeSpots());
+        }
+    }
+    
+    public List<FloorOccupancyDTO> getSummary(Long garageId) {
+        ConcurrentSkipListMap<Integer, FloorCounter> floors = floorsOf(garageId);
+        List<FloorOccupancyDTO> summary = new ArrayList<>(floors.size());
+        floors.forEach((floor, counter) ->
+                summary.add(new FloorOccupancyDTO(floor, counter.total, counter.free.sum())));
+        return summary;
+    }
+    
+    private ConcurrentSkipListMap<Integer, FloorCounter> floorsOf(Long garageId) {
+        return garages.computeIfAbsent(garageId, id -> new ConcurrentSkipListMap<>());
+    }
+    
+    private FloorCounter floorOf(Long garageId, Integer floor) {
+        ConcurrentSkipListMap<Integer, FloorCounter> floors = floorsOf(garageId);
+        FloorCounter counter = floors.get(floor);
+        if (counter != null) {
+            return counter;
+        }
+        counter = floors.computeIfAbsent(floor, f -> new FloorCounter());
+        // Gauges look the floor up on every scrape, so they keep working when a floor is replaced;
+        // registering an existing gauge again is a no-op
+        Tags tags = Tags.of("garage", String.valueOf(garageId), "floor", String.valueOf(floor));
+        Gauge.builder("parking.spots.free", () -> gaugeValue(garageId, floor, c -> c.free.sum()))
+                .tags(tags)
+                .register(meterRegistry);
+        Gauge.builder("parking.spots.total", () -> gaugeValue(garageId, floor, c -> c.total))
+                .tags(tags)
+                .register(meterRegistry);
+        return counter;
+    }
+    
+    private Number gaugeValue(Long garageId, Integer floor, ToLongFunction<FloorCounter> value) {
+        FloorCounter counter = floorsOf(garageId).get(floor);
+        return counter != null ? value.applyAsLong(counter) : Double.NaN;
+    }
+    
+    private static class FloorCounter {
+        private volatile long total;
+        private final LongAdder free = new LongAdder();
+    }
+}
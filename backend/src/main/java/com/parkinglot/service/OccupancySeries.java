@@ -0,0 +1,100 @@
+package com.parkinglot.service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Hourly occupancy buckets of one floor, kept in blocks of primitive arrays indexed by hour. A closed
+ * session adds the seconds it overlapped each hour, an arrival to its start hour, and a departure and
+ * its dwell time to its end hour. Hours are counted from the epoch on the wall clock the session times
+ * are recorded in. Reads and writes are synchronized per floor and touch a few array slots per hour.
+ */
+class OccupancySeries {
+    
+    static final int SECONDS_PER_HOUR = 3600;
+    // ~43 days per block, so a year of one floor is nine blocks
+    private static final int BLOCK_HOURS = 1024;
+    
+    // hour / BLOCK_HOURS -> block
+    private final Map<Long, Block> blocks = new HashMap<>();
+    
+    synchronized void add(long startSecond, long endSecond) {
+        endSecond = Math.max(startSecond, endSecond);
+        long startHour = Math.floorDiv(startSecond, SECONDS_PER_HOUR);
+        long endHour = Math.floorDiv(endSecond, SECONDS_PER_HOUR);
+        
+        Block start = block(startHour);
+        start.arrivals[slot(startHour)]++;
+        Block end = block(endHour);
+        end.departures[slot(endHour)]++;
+        end.dwellSeconds[slot(endHour)] += endSecond - startSecond;
+        
+        for (long hour = startHour; hour <= endHour; hour++) {
+            long overlap = Math.min(endSecond, (hour + 1) * SECONDS_PER_HOUR) - Math.max(startSecond, hour * SECONDS_PER_HOUR);
+            if (overlap > 0) {
+                block(hour).occupiedSeconds[slot(hour)] += overlap;
+            }
+        }
+    }
+    
+    /**
+     * Adds another series into this one, e.g. one built by a backfill worker. The other series must
+     * not change meanwhile.
+     */
+    synchronized void addAll(OccupancySeries other) {
+        other.blocks.forEach((key, source) -> {
+            Block target = blocks.computeIfAbsent(key, k -> new Block());
+            for (int i = 0; i < BLOCK_HOURS; i++) {
+                target.occupiedSeconds[i] += source.occupiedSeconds[i];
+                target.arrivals[i] += source.arrivals[i];
+                target.departures[i] += source.departures[i];
+                target.dwellSeconds[i] += source.dwellSeconds[i];
+            }
+        });
+    }
+    
+    /**
+     * Visits every hour in [fromHour, toHour) that has buckets; hours without any are skipped.
+     */
+    synchronized void forEachHour(long fromHour, long toHour, HourVisitor visitor) {
+        long hour = fromHour;
+        while (hour < toHour) {
+            long key = Math.floorDiv(hour, BLOCK_HOURS);
+            long blockEnd = Math.min(toHour, (key + 1) * BLOCK_HOURS);
+            Block block = blocks.get(key);
+            if (block != null) {
+                for (; hour < blockEnd; hour++) {
+                    int i = slot(hour);
+                    visitor.visit(hour, block.occupiedSeconds[i], block.arrivals[i], block.departures[i], block.dwellSeconds[i]);
+                }
+            }
+            hour = blockEnd;
+        }
+    }
+    
+    /**
+     * Drops the blocks that end before the given hour.
+     */
+    synchronized void dropBefore(long hour) {
+        blocks.keySet().removeIf(key -> (key + 1) * BLOCK_HOURS <= hour);
+    }
+    
+    private Block block(long hour) {
+        return blocks.computeIfAbsent(Math.floorDiv(hour, BLOCK_HOURS), key -> new Block());
+    }
+    
+    private static int slot(long hour) {
+        return (int) Math.floorMod(hour, BLOCK_HOURS);
+    }
+    
+    interface HourVisitor {
+        void visit(long hour, long occupiedSeconds, int arrivals, int departures, long dwellSeconds);
+    }
+    
+    private static class Block {
+        private final long[] occupiedSeconds = new long[BLOCK_HOURS];
+        private final int[] arrivals = new int[BLOCK_HOURS];
+        private final int[] departures = new int[BLOCK_HOURS];
+        private final long[] dwellSeconds = new long[BLOCK_HOURS];
+    }
+}
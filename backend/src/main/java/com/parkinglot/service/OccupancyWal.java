@@ -0,0 +1,163 @@
+package com.parkinglot.service;
+
+import com.parkinglot.dto.SensorEvent;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of sensor spot states in a fixed-size memory-mapped file. Each append writes all of
+ * its records and then forces them to disk once, so a whole micro-batch costs a single fsync. Every
+ * record carries the log generation and a CRC; reading stops at the first record that is torn or left
+ * over from an earlier generation, so a reset only has to bump the generation in the header. Records of
+ * the current generation behind a torn one are invalidated when it is found, so appends that overwrite
+ * the torn slot cannot make them readable again. The header also keeps a checkpoint offset: records
+ * before it were applied while more were being appended, and are skipped on replay.
+ * Not thread-safe: callers serialize appends, reads and resets.
+ */
+class OccupancyWal implements AutoCloseable {
+
+    private static final int MAGIC = 0x50574131; // "PWA1"
+    // magic, checkpoint offset, generation
+    private static final int HEADER_SIZE = 16;
+    // generation, spot id, epoch second, nano, occupied, crc
+    static final int RECORD_SIZE = 8 + 8 + 8 + 4 + 1 + 4;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final CRC32 crc = new CRC32();
+    private long generation;
+    private int position = HEADER_SIZE;
+    private int checkpointed = HEADER_SIZE;
+
+    OccupancyWal(Path file, int sizeBytes) {
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            int size = (int) Math.max(sizeBytes, Math.min(channel.size(), Integer.MAX_VALUE));
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open sensor WAL " + file, e);
+        }
+        if (buffer.getInt(0) == MAGIC) {
+            generation = buffer.getLong(8);
+            // Zero in files written before the offset was kept
+            checkpointed = Math.max(HEADER_SIZE, buffer.getInt(4));
+        } else {
+            buffer.putInt(0, MAGIC);
+            buffer.putLong(8, ++generation);
+            buffer.force(0, HEADER_SIZE);
+        }
+    }
+
+    /**
+     * Reads the records of the current generation from the checkpoint offset on and moves the append
+     * position behind them. Whatever of the current generation is left behind that position, i.e.
+     * behind a torn record, is invalidated.
+     */
+    List<SensorEvent> readAll() {
+        List<SensorEvent> records = new ArrayList<>();
+        position = HEADER_SIZE;
+        while (position + RECORD_SIZE <= buffer.capacity()
+                && buffer.getLong(position) == generation
+                && buffer.getInt(position + RECORD_SIZE - 4) == checksum(position)) {
+            if (position >= checkpointed) {
+                LocalDateTime observedAt = LocalDateTime.ofEpochSecond(buffer.getLong(position + 16),
+                        buffer.getInt(position + 24), ZoneOffset.UTC);
+                records.add(new SensorEvent(null, buffer.getLong(position + 8), buffer.get(position + 28) == 1, observedAt));
+            }
+            position += RECORD_SIZE;
+        }
+        invalidateFrom(position);
+        return records;
+    }
+    
+    // Clears the generation of every current-generation slot from the offset on
+    private void invalidateFrom(int offset) {
+        int last = -1;
+        for (int slot = offset; slot + RECORD_SIZE <= buffer.capacity(); slot += RECORD_SIZE) {
+            if (buffer.getLong(slot) == generation) {
+                buffer.putLong(slot, 0);
+                last = slot;
+            }
+        }
+        if (last >= 0) {
+            buffer.force(offset, last + RECORD_SIZE - offset);
+        }
+    }
+
+    boolean hasRoom(int records) {
+        return position + (long) records * RECORD_SIZE <= buffer.capacity();
+    }
+
+    /**
+     * Writes the records and forces them to disk. The caller checks {@link #hasRoom} first.
+     */
+    void append(Collection<SensorEvent> records) {
+        int start = position;
+        for (SensorEvent record : records) {
+            buffer.putLong(position, generation);
+            buffer.putLong(position + 8, record.getSpotId());
+            buffer.putLong(position + 16, record.getObservedAt().toEpochSecond(ZoneOffset.UTC));
+            buffer.putInt(position + 24, record.getObservedAt().getNano());
+            buffer.put(position + 28, (byte) (record.getOccupied() ? 1 : 0));
+            buffer.putInt(position + RECORD_SIZE - 4, checksum(position));
+            position += RECORD_SIZE;
+        }
+        if (position > start) {
+            buffer.force(start, position - start);
+        }
+    }
+
+    /**
+     * Position behind the last appended record; unchanged as long as nothing was appended.
+     */
+    int position() {
+        return position;
+    }
+
+    /**
+     * Records that everything before the offset has been applied, so a replay starts there.
+     */
+    void checkpoint(int offset) {
+        checkpointed = offset;
+        buffer.putInt(4, offset);
+        buffer.force(0, HEADER_SIZE);
+    }
+
+    /**
+     * Discards every record by starting a new generation.
+     */
+    void reset() {
+        buffer.putInt(4, HEADER_SIZE);
+        buffer.putLong(8, ++generation);
+        buffer.force(0, HEADER_SIZE);
+        position = HEADER_SIZE;
+        checkpointed = HEADER_SIZE;
+    }
+
+    private int checksum(int offset) {
+        crc.reset();
+        crc.update(buffer.slice(offset, RECORD_SIZE - 4));
+        return (int) crc.getValue();
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
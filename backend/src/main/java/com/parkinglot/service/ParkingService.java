@@ -4,12 +4,19 @@ import com.parkinglot.dto.*;
 import com.parkinglot.model.*;
 import com.parkinglot.repository.*;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
-import java.util.List;
-import java.util.stream.Collectors;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -19,102 +26,518 @@ public class ParkingService {
     private final ParkingSessionRepository parkingSessionRepository;
     private final CarRepository carRepository;
     private final UserRepository userRepository;
+    private final GarageRepository garageRepository;
+    private final ParkingSessionHistoryRepository parkingSessionHistoryRepository;
+    private final BillingService billingService;
+    private final SpotAllocator spotAllocator;
+    private final ReservationIndex reservationIndex;
+    private final ReservationService reservationService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
     
-    public List<ParkingSpotDTO> getAvailableSpots(Integer floor) {
-        List<ParkingSpot> spots;
-        if (floor != null) {
-            spots = parkingSpotRepository.findByFloorAndOccupied(floor, false);
-        } else {
-            spots = parkingSpotRepository.findByOccupied(false);
+    public static final int MAX_PAGE_SIZE = 1000;
+    
+    public List<ParkingSpotDTO> getAvailableSpots(Long garageId, Integer floor) {
+        return parkingSpotRepository.findAvailable(garageId, floor);
+    }
+    
+    /**
+     * Free spots in (floor, spotNumber) order, one page at a time. The cursor is "floor:spotNumber" of the
+     * last spot already returned.
+     */
+    public PageResponse<ParkingSpotDTO> getAvailableSpotsPage(Long garageId, Integer floor, String cursor, int size) {
+        int afterFloor = Integer.MIN_VALUE;
+        int afterSpotNumber = Integer.MIN_VALUE;
+        if (cursor != null) {
+            String[] parts = cursor.split(":");
+            try {
+                afterFloor = Integer.parseInt(parts[0]);
+                afterSpotNumber = Integer.parseInt(parts[1]);
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                throw new RuntimeException("INVALID_CURSOR");
+            }
         }
         
-        return spots.stream()
-                .map(this::convertSpotToDTO)
-                .collect(Collectors.toList());
+        int limit = pageSize(size);
+        List<ParkingSpotDTO> spots = parkingSpotRepository.findAvailableAfter(garageId, floor, afterFloor, afterSpotNumber, Limit.of(limit));
+        String nextCursor = null;
+        if (spots.size() == limit) {
+            ParkingSpotDTO last = spots.get(spots.size() - 1);
+            nextCursor = last.getFloor() + ":" + last.getSpotNumber();
+        }
+        return new PageResponse<>(spots, nextCursor);
+    }
+    
+    /**
+     * Feeds every free spot to the consumer as it is read, without materializing the result.
+     */
+    @Transactional(readOnly = true)
+    public void streamAvailableSpots(Long garageId, Integer floor, Consumer<ParkingSpotDTO> consumer) {
+        try (Stream<ParkingSpotDTO> spots = parkingSpotRepository.streamAvailable(garageId, floor)) {
+            spots.forEach(consumer);
+        }
     }
     
     @Transactional
-    public ParkingSessionDTO parkCar(String email, ParkingRequest request) {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        
-        // Verify car belongs to user
-        Car car = carRepository.findByIdAndUser(request.getCarId(), user)
-                .orElseThrow(() -> new RuntimeException("Car not found"));
+    public ParkingSessionDTO parkCar(Long userId, Long garageId, ParkingRequest request) {
+        // Verify car belongs to user (served from the car cache)
+        OwnedCarDTO car = carRepository.findOwnedCar(request.getCarId());
+        if (car == null || !car.getUserId().equals(userId)) {
+            throw new RuntimeException("Car not found");
+        }
         
         // Check if car is already parked
-        if (parkingSessionRepository.existsByCarAndActive(car, true)) {
+        if (parkingSessionRepository.existsByActiveCarId(car.getId())) {
             throw new RuntimeException("CAR_ALREADY_PARKED");
         }
         
         ParkingSpot spot;
+        LocalDateTime now = LocalDateTime.now();
         
-        // Auto-assign spot if floor/spotNumber not provided
-        if (request.getFloor() == null || request.getSpotNumber() == null) {
-            // Find first available spot (prefer lower floors)
-            spot = parkingSpotRepository.findByOccupied(false).stream()
-                    .sorted((s1, s2) -> {
-                        int floorCompare = Integer.compare(s1.getFloor(), s2.getFloor());
-                        return floorCompare != 0 ? floorCompare : Integer.compare(s1.getSpotNumber(), s2.getSpotNumber());
-                    })
-                    .findFirst()
-                    .orElseThrow(() -> new RuntimeException("NO_SPOTS_AVAILABLE"));
+        if (request.getReservationId() != null) {
+            spot = reservationService.fulfil(userId, garageId, request.getReservationId(), car.getId());
+            // Still taken by an overstaying car: any other free spot on the same floor will do
+            if (!claimSpot(garageId, spot)) {
+                spot = claimFreeSpot(garageId, spot.getFloor(), now);
+            }
+        } else if (request.getFloor() == null || request.getSpotNumber() == null) {
+            // Auto-assign spot if spotNumber not provided (floor, when given, is only a preference)
+            spot = claimFreeSpot(garageId, request.getFloor(), now);
         } else {
-            // Find specific spot
-            spot = parkingSpotRepository.findByFloorAndSpotNumber(request.getFloor(), request.getSpotNumber())
-                    .orElseThrow(() -> new RuntimeException("Parking spot not found"));
+            // Find specific spot; whether it is free is decided by the claim below, not by the cached identity
+            SpotIdentityDTO identity = parkingSpotRepository.findIdentityByPosition(garageId, request.getFloor(), request.getSpotNumber());
+            if (identity == null) {
+                throw new RuntimeException("Parking spot not found");
+            }
+            spot = spotOf(identity, false);
             
-            // Check if spot is already occupied
-            if (spot.getOccupied()) {
+            // Booked now or soon by someone else
+            if (reservationIndex.isHeld(spot.getId(), now)) {
+                throw new RuntimeException("SPOT_RESERVED");
+            }
+            if (!claimSpot(garageId, spot)) {
                 throw new RuntimeException("SPOT_ALREADY_OCCUPIED");
             }
         }
         
         // Create parking session
         ParkingSession session = new ParkingSession();
-        session.setUser(user);
-        session.setCar(car);
+        session.setGarage(garageRepository.getReferenceById(garageId));
+        session.setUser(userRepository.getReferenceById(userId));
+        session.setCar(carRepository.getReferenceById(car.getId()));
         session.setParkingSpot(spot);
-        session.setStartTime(LocalDateTime.now());
+        session.setStartTime(now);
         session.setActive(true);
+        session.setActiveCarId(car.getId());
+        session.setActiveSpotId(spot.getId());
+        
+        try {
+            session = parkingSessionRepository.saveAndFlush(session);
+        } catch (DataIntegrityViolationException e) {
+            // The same car parked concurrently and won; the spot itself is guarded by claimSpot
+            throw new RuntimeException(isActiveSpotViolation(e) ? "SPOT_ALREADY_OCCUPIED" : "CAR_ALREADY_PARKED");
+        }
+        eventPublisher.publishEvent(toStatusEvent(spot, true));
+        
+        // Built from what is already at hand; the car reference is never loaded
+        return new ParkingSessionDTO(session.getId(), garageId, car.toCarDTO(), convertSpotToDTO(spot), now);
+    }
+    
+    /**
+     * Parks several cars in one transaction. Cars and their active sessions are looked up with one query
+     * each, spots are taken from the allocator in one pass and claimed with one JDBC batch, and sessions
+     * are inserted in Hibernate batches. An item that fails gets its error code without affecting the
+     * others. If the batch still hits a constraint (the same car parked concurrently) it is rolled back
+     * and every item is retried on its own. Items with a reservation always go the single-item way,
+     * after the batch.
+     */
+    public List<BatchItemResult<ParkingSessionDTO>> parkCars(Long userId, Long garageId, List<ParkingRequest> requests) {
+        List<BatchItemResult<ParkingSessionDTO>> results;
+        try {
+            results = transactionTemplate.execute(status -> parkCarsInBatch(userId, garageId, requests));
+        } catch (DataIntegrityViolationException e) {
+            results = new ArrayList<>(Collections.nCopies(requests.size(), null));
+        }
+        for (int i = 0; i < requests.size(); i++) {
+            if (results.get(i) == null) {
+                ParkingRequest request = requests.get(i);
+                results.set(i, runItem(i, () -> transactionTemplate.execute(status -> parkCar(userId, garageId, request))));
+            }
+        }
+        return results;
+    }
+    
+    private List<BatchItemResult<ParkingSessionDTO>> parkCarsInBatch(Long userId, Long garageId, List<ParkingRequest> requests) {
+        int count = requests.size();
+        List<BatchItemResult<ParkingSessionDTO>> results = new ArrayList<>(Collections.nCopies(count, null));
+        LocalDateTime now = LocalDateTime.now();
+        
+        Set<Long> carIds = new HashSet<>();
+        requests.forEach(request -> carIds.add(request.getCarId()));
+        Map<Long, Car> cars = new HashMap<>();
+        carRepository.findByIdInAndUserId(carIds, userId).forEach(car -> cars.put(car.getId(), car));
+        Set<Long> parkedCarIds = new HashSet<>(parkingSessionRepository.findActiveCarIds(carIds));
+        
+        // index -> spot id taken from the allocator but not yet claimed in the database
+        Map<Integer, Long> candidates = new LinkedHashMap<>();
+        Set<Integer> explicit = new HashSet<>();
+        List<Integer> needSpot = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ParkingRequest request = requests.get(i);
+            if (request.getReservationId() != null) {
+                continue;
+            }
+            Car car = cars.get(request.getCarId());
+            if (car == null) {
+                results.set(i, BatchItemResult.failure(i, "Car not found"));
+            } else if (!parkedCarIds.add(car.getId())) {
+                results.set(i, BatchItemResult.failure(i, "CAR_ALREADY_PARKED"));
+            } else if (request.getFloor() == null || request.getSpotNumber() == null) {
+                needSpot.add(i);
+            } else {
+                ParkingSpot spot = parkingSpotRepository.findByGarageIdAndFloorAndSpotNumber(
+                        garageId, request.getFloor(), request.getSpotNumber()).orElse(null);
+                if (spot == null) {
+                    results.set(i, BatchItemResult.failure(i, "Parking spot not found"));
+                } else if (reservationIndex.isHeld(spot.getId(), now)) {
+                    results.set(i, BatchItemResult.failure(i, "SPOT_RESERVED"));
+                } else if (spot.getOccupied() || !spotAllocator.claim(garageId, spot.getFloor(), spot.getSpotNumber())) {
+                    results.set(i, BatchItemResult.failure(i, "SPOT_ALREADY_OCCUPIED"));
+                } else {
+                    candidates.put(i, spot.getId());
+                    explicit.add(i);
+                }
+            }
+        }
+        
+        // Claim all candidates with one JDBC batch. An auto-assigned item whose spot turns out to be
+        // taken (stale index entry) gets another one in the next round, as claimFreeSpot does
+        Map<Integer, Long> claimedSpotIds = new LinkedHashMap<>();
+        while (true) {
+            for (Integer i : needSpot) {
+                Optional<Long> spotId = spotAllocator.claimFree(garageId, requests.get(i).getFloor(),
+                        id -> reservationIndex.isHeld(id, now));
+                if (spotId.isPresent()) {
+                    candidates.put(i, spotId.get());
+                } else {
+                    results.set(i, BatchItemResult.failure(i, "NO_SPOTS_AVAILABLE"));
+                }
+            }
+            if (candidates.isEmpty()) {
+                break;
+            }
+            
+            int[] updated = jdbcTemplate.batchUpdate("update parking_spots set occupied = true where id = ? and occupied = false",
+                    candidates.values().stream().map(id -> new Object[]{id}).toList());
+            needSpot = new ArrayList<>();
+            int k = 0;
+            for (Map.Entry<Integer, Long> candidate : candidates.entrySet()) {
+                Integer i = candidate.getKey();
+                if (updated[k++] == 1) {
+                    claimedSpotIds.put(i, candidate.getValue());
+                } else if (explicit.contains(i)) {
+                    results.set(i, BatchItemResult.failure(i, "SPOT_ALREADY_OCCUPIED"));
+                } else {
+                    spotAllocator.recordStaleClaim();
+                    needSpot.add(i);
+                }
+            }
+            candidates.clear();
+        }
         
-        session = parkingSessionRepository.save(session);
+        Map<Long, ParkingSpot> claimedSpots = new HashMap<>();
+        for (ParkingSpot spot : parkingSpotRepository.findAllById(claimedSpotIds.values())) {
+            spot.setOccupied(true);
+            claimedSpots.put(spot.getId(), spot);
+        }
         
-        // Mark spot as occupied
+        List<Integer> parked = new ArrayList<>(claimedSpotIds.keySet());
+        List<ParkingSession> sessions = new ArrayList<>(parked.size());
+        for (Integer i : parked) {
+            Car car = cars.get(requests.get(i).getCarId());
+            ParkingSpot spot = claimedSpots.get(claimedSpotIds.get(i));
+            ParkingSession session = new ParkingSession();
+            session.setGarage(garageRepository.getReferenceById(garageId));
+            session.setUser(userRepository.getReferenceById(userId));
+            session.setCar(car);
+            session.setParkingSpot(spot);
+            session.setStartTime(now);
+            session.setActive(true);
+            session.setActiveCarId(car.getId());
+            session.setActiveSpotId(spot.getId());
+            sessions.add(session);
+        }
+        parkingSessionRepository.saveAll(sessions);
+        parkingSessionRepository.flush();
+        
+        for (int k = 0; k < parked.size(); k++) {
+            ParkingSession session = sessions.get(k);
+            eventPublisher.publishEvent(toStatusEvent(session.getParkingSpot(), true));
+            results.set(parked.get(k), BatchItemResult.success(parked.get(k), convertSessionToDTO(session)));
+        }
+        return results;
+    }
+    
+    /**
+     * Takes a free spot from the in-memory index (preferred floor, otherwise lower floors first,
+     * spilling over to a quieter floor when that one is hot) and claims it with a conditional update.
+     * A candidate that is already occupied in the database (stale index entry or another instance
+     * winning the race) is dropped and the next one is tried, so no lock is held across candidates.
+     * Spots booked now or within the reservation hold window are passed over.
+     */
+    private ParkingSpot claimFreeSpot(Long garageId, Integer preferredFloor, LocalDateTime now) {
+        while (true) {
+            Long spotId = spotAllocator.claimFree(garageId, preferredFloor, id -> reservationIndex.isHeld(id, now))
+                    .orElseThrow(() -> new RuntimeException("NO_SPOTS_AVAILABLE"));
+            if (parkingSpotRepository.claimSpot(spotId) == 1) {
+                SpotIdentityDTO identity = parkingSpotRepository.findIdentityById(spotId);
+                if (identity == null) {
+                    throw new RuntimeException("Parking spot not found");
+                }
+                return spotOf(identity, true);
+            }
+            spotAllocator.recordStaleClaim();
+        }
+    }
+    
+    /**
+     * Detached stand-in for a spot, built from its cached identity. Good for associations (Hibernate only
+     * needs the id), the allocator and DTOs; never loaded or flushed.
+     */
+    private ParkingSpot spotOf(SpotIdentityDTO identity, boolean occupied) {
+        return new ParkingSpot(identity.getId(), garageRepository.getReferenceById(identity.getGarageId()),
+                identity.getFloor(), identity.getSpotNumber(), occupied);
+    }
+    
+    /**
+     * Claims a specific spot in the index and the database. Returns false if it is already occupied.
+     */
+    private boolean claimSpot(Long garageId, ParkingSpot spot) {
+        if (spot.getOccupied() || !spotAllocator.claim(garageId, spot.getFloor(), spot.getSpotNumber())) {
+            return false;
+        }
+        if (parkingSpotRepository.claimSpot(spot.getId()) == 0) {
+            return false;
+        }
         spot.setOccupied(true);
-        spot.setCurrentParkingSession(session);
-        parkingSpotRepository.save(spot);
+        return true;
+    }
+    
+    public List<ParkingSessionDTO> getActiveSessions(Long userId) {
+        return parkingSessionRepository.findActiveSessionDTOs(userId);
+    }
+    
+    /**
+     * Active sessions in id order, one page at a time. The cursor is the id of the last session already returned.
+     */
+    public PageResponse<ParkingSessionDTO> getActiveSessionsPage(Long userId, String cursor, int size) {
+        long afterId = 0;
+        if (cursor != null) {
+            try {
+                afterId = Long.parseLong(cursor);
+            } catch (NumberFormatException e) {
+                throw new RuntimeException("INVALID_CURSOR");
+            }
+        }
         
-        return convertSessionToDTO(session);
+        int limit = pageSize(size);
+        List<ParkingSessionDTO> sessions = parkingSessionRepository.findActiveSessionDTOsAfter(userId, afterId, Limit.of(limit));
+        String nextCursor = sessions.size() == limit
+                ? String.valueOf(sessions.get(sessions.size() - 1).getParkingSessionId())
+                : null;
+        return new PageResponse<>(sessions, nextCursor);
     }
     
-    public List<ParkingSessionDTO> getActiveSessions(String email) {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
+    @Transactional(readOnly = true)
+    public void streamActiveSessions(Long userId, Consumer<ParkingSessionDTO> consumer) {
+        try (Stream<ParkingSessionDTO> sessions = parkingSessionRepository.streamActiveSessionDTOs(userId)) {
+            sessions.forEach(consumer);
+        }
+    }
+    
+    /**
+     * Closed sessions, newest first, one page at a time. The cursor is the id of the last session already
+     * returned. Sessions closed since the last archiver run are still in parking_sessions, so both tables
+     * are read and merged; the live table is read first so a session archived in between is not missed.
+     */
+    public PageResponse<ParkingHistoryDTO> getSessionHistoryPage(Long userId, String cursor, int size) {
+        long beforeId = Long.MAX_VALUE;
+        if (cursor != null) {
+            try {
+                beforeId = Long.parseLong(cursor);
+            } catch (NumberFormatException e) {
+                throw new RuntimeException("INVALID_CURSOR");
+            }
+        }
+        
+        int limit = pageSize(size);
+        List<ParkingHistoryDTO> recent = parkingSessionRepository.findClosedHistoryBefore(userId, beforeId, Limit.of(limit));
+        List<ParkingHistoryDTO> archived = parkingSessionHistoryRepository.findHistoryBefore(userId, beforeId, Limit.of(limit));
         
-        return parkingSessionRepository.findByUserAndActive(user, true).stream()
-                .map(this::convertSessionToDTO)
-                .collect(Collectors.toList());
+        List<ParkingHistoryDTO> sessions = new ArrayList<>(limit);
+        int r = 0;
+        int a = 0;
+        while (sessions.size() < limit && (r < recent.size() || a < archived.size())) {
+            ParkingHistoryDTO next;
+            if (a >= archived.size() || (r < recent.size()
+                    && recent.get(r).getParkingSessionId() >= archived.get(a).getParkingSessionId())) {
+                next = recent.get(r++);
+            } else {
+                next = archived.get(a++);
+            }
+            // Seen in both tables when it was archived between the two reads
+            if (sessions.isEmpty() || !sessions.get(sessions.size() - 1).getParkingSessionId().equals(next.getParkingSessionId())) {
+                sessions.add(next);
+            }
+        }
+        
+        String nextCursor = sessions.size() == limit
+                ? String.valueOf(sessions.get(sessions.size() - 1).getParkingSessionId())
+                : null;
+        return new PageResponse<>(sessions, nextCursor);
     }
     
+    /**
+     * Closes the session, prices it and returns the receipt.
+     */
     @Transactional
-    public void leaveParkingSpot(String email, Long sessionId) {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        
-        ParkingSession session = parkingSessionRepository.findByIdAndUser(sessionId, user)
+    public ParkingHistoryDTO leaveParkingSpot(Long userId, Long sessionId) {
+        ParkingSession session = parkingSessionRepository.findByIdAndUserId(sessionId, userId)
                 .orElseThrow(() -> new RuntimeException("Session not found"));
         
-        // Mark session as inactive
-        session.setActive(false);
-        session.setEndTime(LocalDateTime.now());
-        parkingSessionRepository.save(session);
+        // A session can only be closed once, otherwise the spot would be freed under its next occupant.
+        // The conditional update decides between concurrent leaves: only the one that closed it goes on
+        LocalDateTime now = LocalDateTime.now();
+        long amountCents = price(session, now);
+        if (!session.getActive() || parkingSessionRepository.closeSession(sessionId, now, amountCents) != 1) {
+            throw new RuntimeException("Session not found");
+        }
+        
+        ParkingHistoryDTO receipt = afterClose(session, now, amountCents);
         
         // Mark spot as available
+        parkingSpotRepository.releaseSpot(session.getParkingSpot().getId());
+        return receipt;
+    }
+    
+    /**
+     * Closes several sessions in one transaction: they are loaded with one query, then closed and their
+     * spots released with one JDBC batch each. A session that is not found, listed twice or closed
+     * concurrently gets an error without affecting the others.
+     */
+    @Transactional
+    public List<BatchItemResult<ParkingHistoryDTO>> leaveParkingSpots(Long userId, List<Long> sessionIds) {
+        Map<Long, ParkingSession> sessions = new LinkedHashMap<>();
+        parkingSessionRepository.findActiveByIdInAndUserId(new HashSet<>(sessionIds), userId)
+                .forEach(session -> sessions.put(session.getId(), session));
+        Map<Long, ParkingHistoryDTO> receipts = closeSessions(sessions.values(), LocalDateTime.now());
+        
+        List<BatchItemResult<ParkingHistoryDTO>> results = new ArrayList<>(sessionIds.size());
+        List<Object[]> releasedSpotIds = new ArrayList<>(receipts.size());
+        for (int i = 0; i < sessionIds.size(); i++) {
+            ParkingHistoryDTO receipt = receipts.remove(sessionIds.get(i));
+            if (receipt == null) {
+                results.add(BatchItemResult.failure(i, "Session not found"));
+                continue;
+            }
+            results.add(BatchItemResult.success(i, receipt));
+            releasedSpotIds.add(new Object[]{sessions.get(sessionIds.get(i)).getParkingSpot().getId()});
+        }
+        jdbcTemplate.batchUpdate("update parking_spots set occupied = false where id = ? and occupied = true", releasedSpotIds);
+        return results;
+    }
+    
+    /**
+     * Closes whatever sessions are active on the given spots, as when sensors report them empty. Returns
+     * the ids of the spots whose session was closed; their spot rows are left to the caller.
+     */
+    @Transactional
+    public Set<Long> closeSessionsOnSpots(Collection<Long> spotIds) {
+        List<ParkingSession> sessions = parkingSessionRepository.findActiveBySpotIds(spotIds);
+        Map<Long, ParkingHistoryDTO> receipts = closeSessions(sessions, LocalDateTime.now());
+        
+        Set<Long> closed = new HashSet<>();
+        for (ParkingSession session : sessions) {
+            if (receipts.containsKey(session.getId())) {
+                closed.add(session.getParkingSpot().getId());
+            }
+        }
+        return closed;
+    }
+    
+    /**
+     * Closes and prices the sessions with one conditional JDBC batch. Returns the receipts, by session id,
+     * of the sessions this call actually closed; one closed concurrently meanwhile is left out and gets no
+     * release, events or bill.
+     */
+    private Map<Long, ParkingHistoryDTO> closeSessions(Collection<ParkingSession> sessions, LocalDateTime now) {
+        List<ParkingSession> toClose = List.copyOf(sessions);
+        long[] amountCents = new long[toClose.size()];
+        List<Object[]> closeArgs = new ArrayList<>(toClose.size());
+        for (int i = 0; i < toClose.size(); i++) {
+            amountCents[i] = price(toClose.get(i), now);
+            closeArgs.add(new Object[]{now, amountCents[i], toClose.get(i).getId()});
+        }
+        int[] closed = jdbcTemplate.batchUpdate("update parking_sessions set active = false, end_time = ?, amount_cents = ?, " +
+                "active_car_id = null, active_spot_id = null where id = ? and active = true", closeArgs);
+        
+        Map<Long, ParkingHistoryDTO> receipts = new HashMap<>();
+        for (int i = 0; i < toClose.size(); i++) {
+            if (closed[i] == 1) {
+                receipts.put(toClose.get(i).getId(), afterClose(toClose.get(i), now, amountCents[i]));
+            }
+        }
+        return receipts;
+    }
+    
+    private long price(ParkingSession session, LocalDateTime end) {
+        return billingService.price(session.getParkingSpot().getFloor(), session.getStartTime(), end);
+    }
+    
+    /**
+     * For a session this transaction has just closed: returns its spot to the allocator on commit,
+     * publishes the spot and session events and builds the receipt. The spot row itself is released by
+     * the caller. The loaded entity is left as it was, so it is not written again on flush.
+     */
+    private ParkingHistoryDTO afterClose(ParkingSession session, LocalDateTime now, long amountCents) {
         ParkingSpot spot = session.getParkingSpot();
-        spot.setOccupied(false);
-        spot.setCurrentParkingSession(null);
-        parkingSpotRepository.save(spot);
+        spotAllocator.releaseAfterCommit(spot);
+        eventPublisher.publishEvent(toStatusEvent(spot, false));
+        eventPublisher.publishEvent(new SessionClosedEvent(session.getGarage().getId(), spot.getFloor(),
+                session.getStartTime(), now));
+        
+        return new ParkingHistoryDTO(
+                session.getId(),
+                session.getGarage().getId(),
+                session.getCar().getId(),
+                session.getCar().getLicensePlate(),
+                spot.getFloor(),
+                spot.getSpotNumber(),
+                session.getStartTime(),
+                now,
+                amountCents
+        );
+    }
+    
+    private <T> BatchItemResult<T> runItem(int index, Supplier<T> item) {
+        try {
+            return BatchItemResult.success(index, item.get());
+        } catch (RuntimeException e) {
+            return BatchItemResult.failure(index, e.getMessage());
+        }
+    }
+    
+    private boolean isActiveSpotViolation(DataIntegrityViolationException e) {
+        return e.getMessage() != null && e.getMessage().toLowerCase().contains("uk_session_active_spot");
+    }
+    
+    private int pageSize(int size) {
+        return Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+    }
+    
+    private SpotStatusEvent toStatusEvent(ParkingSpot spot, boolean occupied) {
+        return new SpotStatusEvent(spot.getGarage().getId(), spot.getId(), spot.getFloor(), spot.getSpotNumber(), occupied);
     }
     
     private ParkingSpotDTO convertSpotToDTO(ParkingSpot spot) {
@@ -139,6 +562,7 @@ public class ParkingService {
         
         return new ParkingSessionDTO(
                 session.getId(),
+                session.getGarage().getId(),
                 carDTO,
                 spotDTO,
                 session.getStartTime()
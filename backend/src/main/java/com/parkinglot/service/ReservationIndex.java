@@ -0,0 +1,149 @@
+package com.parkinglot.service;
+
+import com.parkinglot.dto.ReservationSlotDTO;
+import com.parkinglot.repository.ReservationRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+/**
+ * In-memory index of booked reservations: per spot, its bookings sorted by start time. Bookings of one
+ * spot never overlap, so they are sorted by end time too and an overlap check is a single lowerEntry
+ * lookup, whatever the number of future reservations. Writes to a spot are serialized by the map's
+ * per-key compute; reads are lock-free. The database stays the source of truth; the index is rebuilt
+ * from it on startup and only knows about bookings made through this instance.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReservationIndex {
+    
+    private final ReservationRepository reservationRepository;
+    private final TransactionTemplate transactionTemplate;
+    
+    // spot id -> (start -> end) of its bookings
+    private final Map<Long, ConcurrentSkipListMap<LocalDateTime, LocalDateTime>> spots = new ConcurrentHashMap<>();
+    
+    // Walk-ins are kept off spots whose booking starts within this many minutes
+    @Value("${parking.reservations.hold-minutes:120}")
+    private long holdMinutes = 120;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void reload() {
+        spots.clear();
+        long[] loaded = new long[1];
+        transactionTemplate.executeWithoutResult(status -> {
+            try (Stream<ReservationSlotDTO> slots = reservationRepository.streamBookedEndingAfter(LocalDateTime.now())) {
+                slots.forEach(slot -> {
+                    spots.computeIfAbsent(slot.getSpotId(), id -> new ConcurrentSkipListMap<>())
+                            .put(slot.getStartTime(), slot.getEndTime());
+                    loaded[0]++;
+                });
+            }
+        });
+        log.info("Loaded {} reservations on {} spots", loaded[0], spots.size());
+    }
+    
+    /**
+     * Books [start, end) on the spot unless it overlaps an existing booking. Returns false on conflict.
+     */
+    public boolean tryBook(long spotId, LocalDateTime start, LocalDateTime end) {
+        boolean[] booked = new boolean[1];
+        spots.compute(spotId, (id, slots) -> {
+            if (slots == null) {
+                slots = new ConcurrentSkipListMap<>();
+            }
+            if (!overlaps(slots, start, end)) {
+                slots.put(start, end);
+                booked[0] = true;
+            }
+            return slots.isEmpty() ? null : slots;
+        });
+        return booked[0];
+    }
+    
+    public void remove(long spotId, LocalDateTime start, LocalDateTime end) {
+        spots.computeIfPresent(spotId, (id, slots) -> {
+            slots.remove(start, end);
+            return slots.isEmpty() ? null : slots;
+        });
+    }
+    
+    /**
+     * True if a booking on the spot overlaps [from, to).
+     */
+    public boolean isBooked(long spotId, LocalDateTime from, LocalDateTime to) {
+        ConcurrentSkipListMap<LocalDateTime, LocalDateTime> slots = spots.get(spotId);
+        return slots != null && overlaps(slots, from, to);
+    }
+    
+    /**
+     * True if the spot is booked now or within the hold window, i.e. must not be given to a walk-in.
+     */
+    public boolean isHeld(long spotId, LocalDateTime now) {
+        return isBooked(spotId, now, now.plusMinutes(holdMinutes));
+    }
+    
+    private static boolean overlaps(ConcurrentSkipListMap<LocalDateTime, LocalDateTime> slots,
+                                    LocalDateTime start, LocalDateTime end) {
+        // The last booking starting before our end is the only one that can still run past our start
+        Map.Entry<LocalDateTime, LocalDateTime> before = slots.lowerEntry(end);
+        return before != null && before.getValue().isAfter(start);
+    }
+    
+    /**
+     * Drops bookings that have ended, fulfilled or not.
+     */
+    @Scheduled(fixedDelayString = "${parking.reservations.prune-interval-ms:60000}")
+    public void pruneEnded() {
+        LocalDateTime now = LocalDateTime.now();
+        for (Long spotId : spots.keySet()) {
+            spots.computeIfPresent(spotId, (id, slots) -> {
+                Map.Entry<LocalDateTime, LocalDateTime> first;
+                while ((first = slots.firstEntry()) != null && !first.getValue().isAfter(now)) {
+                    slots.remove(first.getKey());
+                }
+                return slots.isEmpty() ? null : slots;
+            });
+        }
+    }
+    
+    /**
+     * Takes a booking back out if the surrounding transaction rolls back.
+     */
+    public void removeOnRollback(long spotId, LocalDateTime start, LocalDateTime end) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    remove(spotId, start, end);
+                }
+            }
+        });
+    }
+    
+    /**
+     * Frees the booked time once the surrounding transaction commits.
+     */
+    public void removeAfterCommit(long spotId, LocalDateTime start, LocalDateTime end) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                remove(spotId, start, end);
+            }
+        });
+    }
+}
@@ -0,0 +1,150 @@
+package com.parkinglot.service;
+
+import com.parkinglot.dto.OwnedCarDTO;
+import com.parkinglot.dto.ReservationDTO;
+import com.parkinglot.dto.ReservationRequest;
+import com.parkinglot.dto.SpotIdentityDTO;
+import com.parkinglot.model.ParkingSpot;
+import com.parkinglot.model.Reservation;
+import com.parkinglot.model.ReservationStatus;
+import com.parkinglot.repository.*;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.LongPredicate;
+import java.util.stream.Stream;
+
+@Service
+@RequiredArgsConstructor
+public class ReservationService {
+    
+    private final ReservationRepository reservationRepository;
+    private final ParkingSpotRepository parkingSpotRepository;
+    private final CarRepository carRepository;
+    private final UserRepository userRepository;
+    private final GarageRepository garageRepository;
+    private final ReservationIndex reservationIndex;
+    private final SpotAllocator spotAllocator;
+    
+    @Value("${parking.reservations.max-duration-hours:24}")
+    private long maxDurationHours = 24;
+    
+    @Value("${parking.reservations.max-advance-days:90}")
+    private long maxAdvanceDays = 90;
+    
+    // How long before its start a reservation can be used to park
+    @Value("${parking.reservations.early-arrival-minutes:15}")
+    private long earlyArrivalMinutes = 15;
+    
+    /**
+     * Books a specific spot, or the first spot on the requested floor (any floor if none) that is free
+     * for the whole window. Conflicts are checked against the in-memory index, not the database.
+     */
+    @Transactional
+    public ReservationDTO reserve(Long userId, Long garageId, ReservationRequest request) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime start = request.getStartTime();
+        LocalDateTime end = request.getEndTime();
+        if (!end.isAfter(start) || start.isBefore(now)
+                || end.isAfter(start.plusHours(maxDurationHours))
+                || start.isAfter(now.plusDays(maxAdvanceDays))) {
+            throw new RuntimeException("INVALID_RESERVATION_WINDOW");
+        }
+        
+        OwnedCarDTO car = carRepository.findOwnedCar(request.getCarId());
+        if (car == null || !car.getUserId().equals(userId)) {
+            throw new RuntimeException("Car not found");
+        }
+        
+        SpotIdentityDTO spot;
+        if (request.getFloor() != null && request.getSpotNumber() != null) {
+            spot = parkingSpotRepository.findIdentityByPosition(garageId, request.getFloor(), request.getSpotNumber());
+            if (spot == null) {
+                throw new RuntimeException("Parking spot not found");
+            }
+            if (!reservationIndex.tryBook(spot.getId(), start, end)) {
+                throw new RuntimeException("SPOT_RESERVED");
+            }
+        } else {
+            // Spots free right now come from the allocator's index without a query. Occupied spots are only
+            // read from the database, as far as needed, when every free one is booked for the window
+            LongPredicate book = candidate -> reservationIndex.tryBook(candidate, start, end);
+            Long spotId = spotAllocator.firstFree(garageId, request.getFloor(), book).orElse(null);
+            if (spotId == null) {
+                try (Stream<Long> occupied = parkingSpotRepository.streamOccupiedIdsByFloor(garageId, request.getFloor())) {
+                    spotId = occupied.filter(book::test).findFirst().orElse(null);
+                }
+            }
+            if (spotId == null) {
+                throw new RuntimeException("NO_SPOTS_AVAILABLE");
+            }
+            spot = parkingSpotRepository.findIdentityById(spotId);
+        }
+        reservationIndex.removeOnRollback(spot.getId(), start, end);
+        
+        Reservation reservation = new Reservation();
+        reservation.setGarage(garageRepository.getReferenceById(garageId));
+        reservation.setUser(userRepository.getReferenceById(userId));
+        reservation.setCar(carRepository.getReferenceById(car.getId()));
+        reservation.setParkingSpot(parkingSpotRepository.getReferenceById(spot.getId()));
+        reservation.setStartTime(start);
+        reservation.setEndTime(end);
+        reservation = reservationRepository.save(reservation);
+        
+        return new ReservationDTO(
+                reservation.getId(),
+                garageId,
+                car.getId(),
+                car.getLicensePlate(),
+                spot.getId(),
+                spot.getFloor(),
+                spot.getSpotNumber(),
+                start,
+                end,
+                reservation.getStatus()
+        );
+    }
+    
+    public List<ReservationDTO> getUpcomingReservations(Long userId) {
+        return reservationRepository.findUpcoming(userId, LocalDateTime.now());
+    }
+    
+    @Transactional
+    public void cancel(Long userId, Long reservationId) {
+        Reservation reservation = reservationRepository.findByIdAndUserId(reservationId, userId)
+                .orElseThrow(() -> new RuntimeException("Reservation not found"));
+        if (reservationRepository.closeBooking(reservation.getId(), ReservationStatus.CANCELLED) == 0) {
+            throw new RuntimeException("Reservation not found");
+        }
+        reservationIndex.removeAfterCommit(reservation.getParkingSpot().getId(), reservation.getStartTime(), reservation.getEndTime());
+    }
+    
+    /**
+     * Marks a reservation as used for parking the given car now and returns its spot. Joins the
+     * caller's transaction, so the booking stays if parking fails.
+     */
+    @Transactional
+    public ParkingSpot fulfil(Long userId, Long garageId, Long reservationId, Long carId) {
+        Reservation reservation = reservationRepository.findByIdAndUserId(reservationId, userId)
+                .filter(r -> r.getStatus() == ReservationStatus.BOOKED)
+                .filter(r -> r.getCar().getId().equals(carId) && r.getGarage().getId().equals(garageId))
+                .orElseThrow(() -> new RuntimeException("Reservation not found"));
+        
+        LocalDateTime now = LocalDateTime.now();
+        if (!now.isBefore(reservation.getEndTime())) {
+            throw new RuntimeException("RESERVATION_EXPIRED");
+        }
+        if (now.isBefore(reservation.getStartTime().minusMinutes(earlyArrivalMinutes))) {
+            throw new RuntimeException("RESERVATION_NOT_STARTED");
+        }
+        if (reservationRepository.closeBooking(reservation.getId(), ReservationStatus.FULFILLED) == 0) {
+            throw new RuntimeException("Reservation not found");
+        }
+        reservationIndex.removeAfterCommit(reservation.getParkingSpot().getId(), reservation.getStartTime(), reservation.getEndTime());
+        return reservation.getParkingSpot();
+    }
+}
@@ -0,0 +1,379 @@
+package com.parkinglot.service;
+
+import com.parkinglot.dto.IngestReport;
+import com.parkinglot.dto.SensorEvent;
+import com.parkinglot.dto.SpotStatusEvent;
+import com.parkinglot.model.ParkingSpot;
+import com.parkinglot.repository.ParkingSpotRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Applies spot occupied/freed events from gate and occupancy sensors. Submitting only dedupes and
+ * queues: event ids are remembered in a bounded window, so a retried event inside the window is
+ * acknowledged without being applied again. A single worker drains the queue in micro-batches,
+ * keeps the newest observation per spot, and applies the batch in one transaction: conditional JDBC
+ * updates of parking_spots, and a spot reported empty closes the session parked on it. Applying is
+ * state-based, so a retry that has already left the window is still harmless.
+ * <p>
+ * With {@code sensors.write-behind.enabled} the worker instead appends each batch to a local WAL with a
+ * single fsync and keeps the newest state per spot in memory; a checkpointer applies those states to
+ * the database the same way every {@code sensors.write-behind.checkpoint-interval-ms}, and then starts
+ * the WAL over. States left in the WAL are replayed on startup, before the free-spot index is rebuilt.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SensorIngestService {
+    
+    private final ParkingSpotRepository parkingSpotRepository;
+    private final ParkingService parkingService;
+    private final SpotAllocator spotAllocator;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+    
+    @Value("${sensors.dedupe-window:100000}")
+    private int dedupeWindow = 100_000;
+    
+    @Value("${sensors.queue-capacity:100000}")
+    private int queueCapacity = 100_000;
+    
+    @Value("${sensors.batch.max-size:5000}")
+    private int maxBatchSize = 5000;
+    
+    // How long the worker waits for a batch to fill once the first event of it has arrived
+    @Value("${sensors.batch.max-delay-ms:20}")
+    private long maxBatchDelayMs = 20;
+    
+    // Event ids seen recently, and the same ids in arrival order so the oldest can be evicted
+    private final Set<String> seenEventIds = ConcurrentHashMap.newKeySet();
+    private ArrayBlockingQueue<String> seenOrder;
+    
+    private ArrayBlockingQueue<SensorEvent> queue;
+    
+    // spot id -> newest observation applied, so a late, older event cannot undo a newer one
+    private final Map<Long, LocalDateTime> lastObserved = new ConcurrentHashMap<>();
+    
+    @Value("${sensors.write-behind.enabled:false}")
+    private boolean writeBehind;
+    
+    @Value("${sensors.write-behind.wal-file:data/sensor-occupancy.wal}")
+    private String walFile = "data/sensor-occupancy.wal";
+    
+    @Value("${sensors.write-behind.wal-size-mb:64}")
+    private int walSizeMb = 64;
+    
+    @Value("${sensors.write-behind.checkpoint-interval-ms:500}")
+    private long checkpointIntervalMs = 500;
+    
+    private OccupancyWal wal;
+    // spot id -> newest state in the WAL that has not been checkpointed yet; both guarded by walLock
+    private Map<Long, SensorEvent> pending = new HashMap<>();
+    private final Object walLock = new Object();
+    // One checkpoint at a time, whether periodic, forced by a full WAL or on shutdown
+    private final ReentrantLock checkpointLock = new ReentrantLock();
+    private ScheduledExecutorService checkpointer;
+    private Timer walCommitTimer;
+    private Timer checkpointTimer;
+    
+    private Thread worker;
+    private volatile boolean running;
+    
+    @PostConstruct
+    public void start() {
+        seenOrder = new ArrayBlockingQueue<>(dedupeWindow);
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        if (writeBehind) {
+            openWal();
+        }
+        running = true;
+        worker = new Thread(this::drain, "sensor-ingest");
+        worker.setDaemon(true);
+        worker.start();
+    }
+    
+    private void openWal() {
+        wal = new OccupancyWal(Path.of(walFile), walSizeMb << 20);
+        walCommitTimer = LatencyMetrics.histogramTimer(meterRegistry, "sensors.wal.commit");
+        checkpointTimer = LatencyMetrics.histogramTimer(meterRegistry, "sensors.checkpoint");
+        meterRegistry.gauge("sensors.write-behind.pending", this, service -> service.pending.size());
+        List<SensorEvent> records = wal.readAll();
+        records.forEach(this::stage);
+        if (!records.isEmpty()) {
+            log.info("Replaying {} sensor spot states ({} spots) from {}", records.size(), pending.size(), walFile);
+        }
+    }
+    
+    /**
+     * Checkpoints the states replayed from the WAL before the free-spot index and occupancy counters
+     * are rebuilt from the database, then starts the periodic checkpoints.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void startCheckpoints() {
+        if (!writeBehind) {
+            return;
+        }
+        checkpoint();
+        checkpointer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sensor-checkpoint");
+            thread.setDaemon(true);
+            return thread;
+        });
+        checkpointer.scheduleWithFixedDelay(() -> {
+            try {
+                checkpoint();
+            } catch (RuntimeException e) {
+                log.error("Sensor checkpoint failed, retrying in {} ms", checkpointIntervalMs, e);
+            }
+        }, checkpointIntervalMs, checkpointIntervalMs, TimeUnit.MILLISECONDS);
+    }
+    
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        worker.interrupt();
+        worker.join(5000);
+        if (writeBehind) {
+            if (checkpointer != null) {
+                checkpointer.shutdown();
+                checkpointer.awaitTermination(5, TimeUnit.SECONDS);
+            }
+            try {
+                checkpoint();
+            } catch (RuntimeException e) {
+                log.warn("Final sensor checkpoint failed; {} spot states will be replayed on restart", pending.size(), e);
+            }
+            try {
+                wal.close();
+            } catch (IOException e) {
+                log.warn("Failed to close sensor WAL", e);
+            }
+        }
+    }
+    
+    /**
+     * Dedupes and queues the events. Stops at the first event that does not fit in the queue; that one
+     * and the rest count as neither accepted nor duplicate and should be resubmitted.
+     */
+    public IngestReport submit(List<SensorEvent> events) {
+        LocalDateTime now = LocalDateTime.now();
+        int accepted = 0;
+        int duplicates = 0;
+        for (SensorEvent event : events) {
+            if (!remember(event.getEventId())) {
+                duplicates++;
+                continue;
+            }
+            if (event.getObservedAt() == null) {
+                event.setObservedAt(now);
+            }
+            if (!queue.offer(event)) {
+                seenEventIds.remove(event.getEventId());
+                break;
+            }
+            accepted++;
+        }
+        return new IngestReport(events.size(), accepted, duplicates);
+    }
+    
+    private boolean remember(String eventId) {
+        if (!seenEventIds.add(eventId)) {
+            return false;
+        }
+        while (!seenOrder.offer(eventId)) {
+            String oldest = seenOrder.poll();
+            if (oldest != null) {
+                seenEventIds.remove(oldest);
+            }
+        }
+        return true;
+    }
+    
+    private void drain() {
+        List<SensorEvent> batch = new ArrayList<>(maxBatchSize);
+        while (running) {
+            try {
+                SensorEvent first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxBatchDelayMs);
+                while (batch.size() < maxBatchSize) {
+                    queue.drainTo(batch, maxBatchSize - batch.size());
+                    long wait = deadline - System.nanoTime();
+                    if (batch.size() >= maxBatchSize || wait <= 0) {
+                        break;
+                    }
+                    SensorEvent next = queue.poll(wait, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                apply(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                // Forget the ids so the sensors' retries are applied instead of being taken for duplicates
+                log.error("Failed to apply {} sensor events", batch.size(), e);
+                batch.forEach(event -> seenEventIds.remove(event.getEventId()));
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+    
+    private void apply(List<SensorEvent> batch) {
+        // Newest observation per spot wins, within the batch and against what was applied before
+        Map<Long, SensorEvent> latest = new HashMap<>();
+        for (SensorEvent event : batch) {
+            latest.merge(event.getSpotId(), event, (a, b) -> b.getObservedAt().isBefore(a.getObservedAt()) ? a : b);
+        }
+        latest.values().removeIf(event -> {
+            LocalDateTime last = lastObserved.get(event.getSpotId());
+            return last != null && event.getObservedAt().isBefore(last);
+        });
+        if (latest.isEmpty()) {
+            return;
+        }
+        if (writeBehind) {
+            appendToWal(latest.values());
+            return;
+        }
+        
+        transactionTemplate.executeWithoutResult(status -> applyLatest(latest));
+        latest.values().forEach(event -> lastObserved.merge(event.getSpotId(), event.getObservedAt(),
+                (a, b) -> b.isAfter(a) ? b : a));
+        log.debug("Applied {} sensor events as {} spot updates", batch.size(), latest.size());
+    }
+    
+    private void appendToWal(Collection<SensorEvent> states) {
+        if (!wal.hasRoom(states.size())) {
+            // Everything in the WAL is checkpointed afterwards, so it starts over
+            checkpoint();
+        }
+        synchronized (walLock) {
+            if (!wal.hasRoom(states.size())) {
+                throw new IllegalStateException("Sensor WAL cannot hold a batch of " + states.size() + " spot states");
+            }
+            long start = System.nanoTime();
+            wal.append(states);
+            walCommitTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            states.forEach(this::stage);
+        }
+    }
+    
+    private void stage(SensorEvent state) {
+        pending.merge(state.getSpotId(), state, (a, b) -> b.getObservedAt().isBefore(a.getObservedAt()) ? a : b);
+        lastObserved.merge(state.getSpotId(), state.getObservedAt(), (a, b) -> b.isAfter(a) ? b : a);
+    }
+    
+    /**
+     * Applies the pending states to the database in one transaction. The WAL then starts over if nothing
+     * was appended to it in the meantime; otherwise it records how far it has been applied, so a restart
+     * does not replay states that newer ones in the database may already have overtaken.
+     */
+    private void checkpoint() {
+        checkpointLock.lock();
+        try {
+            Map<Long, SensorEvent> states;
+            int covered;
+            synchronized (walLock) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                states = pending;
+                pending = new HashMap<>();
+                covered = wal.position();
+            }
+            long start = System.nanoTime();
+            try {
+                transactionTemplate.executeWithoutResult(status -> applyLatest(states));
+            } catch (RuntimeException e) {
+                // Still in the WAL; put them back unless a newer state was staged meanwhile
+                synchronized (walLock) {
+                    states.forEach((spotId, state) -> pending.merge(spotId, state,
+                            (staged, restored) -> restored.getObservedAt().isAfter(staged.getObservedAt()) ? restored : staged));
+                }
+                throw e;
+            }
+            checkpointTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            synchronized (walLock) {
+                if (wal.position() == covered) {
+                    wal.reset();
+                } else {
+                    wal.checkpoint(covered);
+                }
+            }
+            log.debug("Checkpointed {} sensor spot states", states.size());
+        } finally {
+            checkpointLock.unlock();
+        }
+    }
+    
+    private void applyLatest(Map<Long, SensorEvent> latest) {
+        List<ParkingSpot> changed = new ArrayList<>();
+        List<Long> freed = new ArrayList<>();
+        for (ParkingSpot spot : parkingSpotRepository.findAllById(latest.keySet())) {
+            if (!latest.get(spot.getId()).getOccupied().equals(spot.getOccupied())) {
+                changed.add(spot);
+                if (spot.getOccupied()) {
+                    freed.add(spot.getId());
+                }
+            }
+        }
+        if (changed.isEmpty()) {
+            return;
+        }
+        
+        // An empty spot ends the session parked there; closing it already frees the spot in the index
+        Set<Long> closed = freed.isEmpty() ? Set.of() : parkingService.closeSessionsOnSpots(freed);
+        
+        int[] updated = jdbcTemplate.batchUpdate("update parking_spots set occupied = ? where id = ? and occupied = ?",
+                changed.stream().map(spot -> new Object[]{!spot.getOccupied(), spot.getId(), spot.getOccupied()}).toList());
+        for (int i = 0; i < changed.size(); i++) {
+            ParkingSpot spot = changed.get(i);
+            if (updated[i] != 1 || closed.contains(spot.getId())) {
+                continue;
+            }
+            boolean occupied = !spot.getOccupied();
+            if (occupied) {
+                // Goes back to the index on rollback only if it was taken from it here
+                spotAllocator.claim(spot.getGarage().getId(), spot.getFloor(), spot.getSpotNumber());
+            } else {
+                spotAllocator.releaseAfterCommit(spot);
+            }
+            eventPublisher.publishEvent(new SpotStatusEvent(spot.getGarage().getId(), spot.getId(),
+                    spot.getFloor(), spot.getSpotNumber(), occupied));
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.parkinglot.service;
+
+import com.parkinglot.model.ParkingSession;
+import com.parkinglot.model.ParkingSessionHistory;
+import com.parkinglot.repository.ParkingSessionRepository;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Moves closed sessions from parking_sessions into parking_session_history in chunks, so the live
+ * table only holds active sessions plus whatever closed since the last run. Each chunk is inserted
+ * and deleted in one transaction; a failed chunk (e.g. two instances racing for the same rows) rolls
+ * back and is picked up by the next run.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SessionArchiver {
+    
+    private final ParkingSessionRepository parkingSessionRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    
+    @Value("${parking.archive.chunk-size:500}")
+    private int chunkSize = 500;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${parking.archive.interval-ms:60000}",
+            initialDelayString = "${parking.archive.interval-ms:60000}")
+    public void archiveClosedSessions() {
+        long archived = 0;
+        int moved;
+        do {
+            moved = transactionTemplate.execute(status -> archiveChunk());
+            archived += moved;
+        } while (moved == chunkSize);
+        
+        if (archived > 0) {
+            log.info("Archived {} closed parking sessions", archived);
+        }
+    }
+    
+    private int archiveChunk() {
+        List<ParkingSession> sessions = parkingSessionRepository.findClosedForArchive(Limit.of(chunkSize));
+        for (ParkingSession session : sessions) {
+            entityManager.persist(toHistory(session));
+        }
+        parkingSessionRepository.deleteAllByIdInBatch(sessions.stream().map(ParkingSession::getId).toList());
+        return sessions.size();
+    }
+    
+    private ParkingSessionHistory toHistory(ParkingSession session) {
+        ParkingSessionHistory history = new ParkingSessionHistory();
+        history.setId(session.getId());
+        history.setArchiveMonth(session.getEndTime().getYear() * 100 + session.getEndTime().getMonthValue());
+        history.setGarageId(session.getGarage().getId());
+        history.setUserId(session.getUser().getId());
+        history.setCarId(session.getCar().getId());
+        history.setLicensePlate(session.getCar().getLicensePlate());
+        history.setParkingSpotId(session.getParkingSpot().getId());
+        history.setFloor(session.getParkingSpot().getFloor());
+        history.setSpotNumber(session.getParkingSpot().getSpotNumber());
+        history.setStartTime(session.getStartTime());
+        history.setEndTime(session.getEndTime());
+        history.setAmountCents(session.getAmountCents());
+        return history;
+    }
+}
@@ -0,0 +1,292 @@
+package com.parkinglot.service;
+
+import com.parkinglot.dto.ParkingSpotDTO;
+import com.parkinglot.model.ParkingSpot;
+import com.parkinglot.repository.ParkingSpotRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongPredicate;
+
+/**
+ * In-memory index of free parking spots, one per garage and striped per floor within it.
+ * Arrivals at different garages, or on different floors, only ever touch their own stripe. The
+ * database stays the source of truth; the index is rebuilt from it on startup.
+ */
+@Component
+@RequiredArgsConstructor
+public class SpotAllocator {
+
+    private final ParkingSpotRepository parkingSpotRepository;
+    private final GarageService garageService;
+    private final MeterRegistry meterRegistry;
+
+    // garage id -> (floor -> stripe, iterated lowest floor first)
+    private final Map<Long, ConcurrentSkipListMap<Integer, FloorStripe>> garages = new ConcurrentHashMap<>();
+
+    // A floor with this many claims still in flight is considered hot and new arrivals spill over
+    @Value("${parking.allocator.hot-floor-threshold:8}")
+    private int hotFloorThreshold = 8;
+
+    // How claims were served: from the first floor tried, by spilling over from a hot or full floor,
+    // or by the last-resort rescan after losing every race; plus claims that found nothing
+    private Counter firstChoice;
+    private Counter spillover;
+    private Counter rescan;
+    private Counter exhausted;
+    // Lost a race for an entry to a concurrent claim, and index entries the database had already taken
+    private Counter contended;
+    private Counter stale;
+
+    @PostConstruct
+    void registerMeters() {
+        firstChoice = meterRegistry.counter("parking.allocator.claims", "path", "first-choice");
+        spillover = meterRegistry.counter("parking.allocator.claims", "path", "spillover");
+        rescan = meterRegistry.counter("parking.allocator.claims", "path", "rescan");
+        exhausted = meterRegistry.counter("parking.allocator.claims", "path", "exhausted");
+        contended = meterRegistry.counter("parking.allocator.contended");
+        stale = meterRegistry.counter("parking.allocator.stale");
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void reload() {
+        for (Long garageId : garageService.getGarageIds()) {
+            reload(garageId);
+        }
+    }
+
+    /**
+     * Rebuilds one garage's index; the others are left alone.
+     */
+    public void reload(Long garageId) {
+        ConcurrentSkipListMap<Integer, FloorStripe> stripes = new ConcurrentSkipListMap<>();
+        for (ParkingSpotDTO spot : parkingSpotRepository.findAvailable(garageId, null)) {
+            stripes.computeIfAbsent(spot.getFloor(), f -> new FloorStripe(garageId, f)).freeSpots.put(spot.getSpotNumber(), spot.getId());
+        }
+        garages.put(garageId, stripes);
+    }
+
+    /**
+     * Removes and returns the id of a free spot. The preferred floor (or the lowest floor when none
+     * is given) is used unless it is hot, in which case the least busy floor with free spots is used;
+     * between equally busy floors the one nearest the preferred floor wins, the lower one on a tie.
+     * Spots matching {@code skip} (e.g. reserved ones) stay in the index and are passed over. Inside a
+     * transaction the spot goes back to the index unless the transaction commits.
+     */
+    public Optional<Long> claimFree(Long garageId, Integer preferredFloor, LongPredicate skip) {
+        ConcurrentSkipListMap<Integer, FloorStripe> stripes = stripesOf(garageId);
+        FloorStripe first = preferredFloor != null ? stripes.get(preferredFloor) : null;
+        if (first != null && !first.isHot()) {
+            Optional<Long> spotId = first.claimLowest(skip);
+            if (spotId.isPresent()) {
+                firstChoice.increment();
+                return spotId;
+            }
+        }
+
+        FloorStripe fallback = null;
+        for (FloorStripe stripe : stripes.values()) {
+            if (stripe.isEmpty()) {
+                continue;
+            }
+            if (!stripe.isHot() && preferredFloor == null) {
+                Optional<Long> spotId = stripe.claimLowest(skip);
+                if (spotId.isPresent()) {
+                    firstChoice.increment();
+                    return spotId;
+                }
+            } else if (fallback == null || isBetterFallback(stripe, fallback, preferredFloor)) {
+                fallback = stripe;
+            }
+        }
+
+        // Everything is hot (or a preferred floor is full): take the least busy floor, nearest first
+        if (fallback != null) {
+            Optional<Long> spotId = fallback.claimLowest(skip);
+            if (spotId.isPresent()) {
+                spillover.increment();
+                return spotId;
+            }
+        }
+        // Lost every race above; fall back to a plain lowest-first scan
+        for (FloorStripe stripe : stripes.values()) {
+            Optional<Long> spotId = stripe.claimLowest(skip);
+            if (spotId.isPresent()) {
+                rescan.increment();
+                return spotId;
+            }
+        }
+        exhausted.increment();
+        return Optional.empty();
+    }
+
+    // Stripes come lowest floor first, so keeping the current one on a full tie favours the lower floor
+    private static boolean isBetterFallback(FloorStripe candidate, FloorStripe current, Integer preferredFloor) {
+        int busier = Integer.compare(candidate.inFlight.get(), current.inFlight.get());
+        if (busier != 0 || preferredFloor == null) {
+            return busier < 0;
+        }
+        return Math.abs(candidate.floor - preferredFloor) < Math.abs(current.floor - preferredFloor);
+    }
+
+    /**
+     * Records that a spot handed out by {@link #claimFree} was already taken in the database, so the
+     * caller has to claim another one.
+     */
+    public void recordStaleClaim() {
+        stale.increment();
+    }
+
+    /**
+     * Returns the first free spot, lowest floor and spot number first, that {@code accept} takes.
+     * Unlike {@link #claimFree}, nothing is removed from the index.
+     */
+    public Optional<Long> firstFree(Long garageId, Integer floor, LongPredicate accept) {
+        ConcurrentSkipListMap<Integer, FloorStripe> stripes = stripesOf(garageId);
+        Map<Integer, FloorStripe> selected = floor != null ? stripes.subMap(floor, true, floor, true) : stripes;
+        for (FloorStripe stripe : selected.values()) {
+            for (Long spotId : stripe.freeSpots.values()) {
+                if (accept.test(spotId)) {
+                    return Optional.of(spotId);
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Removes a specific spot from the free index. Returns false if it was not free. Inside a
+     * transaction the spot goes back to the index unless the transaction commits.
+     */
+    public boolean claim(Long garageId, int floor, int spotNumber) {
+        FloorStripe stripe = stripesOf(garageId).get(floor);
+        return stripe != null && stripe.claim(spotNumber);
+    }
+
+    public void release(ParkingSpot spot) {
+        release(spot.getGarage().getId(), spot.getFloor(), spot.getSpotNumber(), spot.getId());
+    }
+
+    /**
+     * Adds newly created spots to the index. Unlike {@link #reload(Long)}, spots already claimed and
+     * the in-flight counts of the garage's floors are left as they are.
+     */
+    public void addFree(Long garageId, List<ParkingSpotDTO> spots) {
+        for (ParkingSpotDTO spot : spots) {
+            release(garageId, spot.getFloor(), spot.getSpotNumber(), spot.getId());
+        }
+    }
+
+    private void release(Long garageId, int floor, int spotNumber, Long spotId) {
+        stripesOf(garageId)
+                .computeIfAbsent(floor, f -> new FloorStripe(garageId, f))
+                .freeSpots.put(spotNumber, spotId);
+    }
+
+    private ConcurrentSkipListMap<Integer, FloorStripe> stripesOf(Long garageId) {
+        return garages.computeIfAbsent(garageId, id -> new ConcurrentSkipListMap<>());
+    }
+
+    /**
+     * Free spots as currently known to the index, optionally limited to one floor. Does not touch the database.
+     */
+    public List<ParkingSpotDTO> freeSpots(Long garageId, Integer floor) {
+        List<ParkingSpotDTO> spots = new ArrayList<>();
+        ConcurrentSkipListMap<Integer, FloorStripe> stripes = stripesOf(garageId);
+        Map<Integer, FloorStripe> selected = floor != null ? stripes.subMap(floor, true, floor, true) : stripes;
+        selected.forEach((stripeFloor, stripe) -> stripe.freeSpots.forEach((spotNumber, spotId) ->
+                spots.add(new ParkingSpotDTO(spotId, stripeFloor, spotNumber, false))));
+        return spots;
+    }
+
+    /**
+     * Makes a spot available again once the surrounding transaction commits.
+     */
+    public void releaseAfterCommit(ParkingSpot spot) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                release(spot);
+            }
+        });
+    }
+
+    private class FloorStripe {
+        private final Long garageId;
+        private final int floor;
+        // spotNumber -> spot id
+        private final ConcurrentSkipListMap<Integer, Long> freeSpots = new ConcurrentSkipListMap<>();
+        // Claims taken from this floor whose transaction has not completed yet
+        private final AtomicInteger inFlight = new AtomicInteger();
+
+        FloorStripe(Long garageId, int floor) {
+            this.garageId = garageId;
+            this.floor = floor;
+        }
+
+        boolean isHot() {
+            return inFlight.get() >= hotFloorThreshold;
+        }
+
+        boolean isEmpty() {
+            return freeSpots.isEmpty();
+        }
+
+        Optional<Long> claimLowest(LongPredicate skip) {
+            for (Map.Entry<Integer, Long> entry : freeSpots.entrySet()) {
+                if (skip.test(entry.getValue())) {
+                    continue;
+                }
+                if (freeSpots.remove(entry.getKey(), entry.getValue())) {
+                    trackClaim(entry.getKey(), entry.getValue());
+                    return Optional.of(entry.getValue());
+                }
+                contended.increment();
+            }
+            return Optional.empty();
+        }
+
+        boolean claim(int spotNumber) {
+            Long spotId = freeSpots.remove(spotNumber);
+            if (spotId == null) {
+                return false;
+            }
+            trackClaim(spotNumber, spotId);
+            return true;
+        }
+
+        // Registered as the entry leaves the index, before the caller touches the database, so a claim
+        // whose UPDATE throws is given back as well. Returning it restores the index as it was, even if
+        // the database turned out to be held elsewhere: the index claim alone proves the entry was ours
+        private void trackClaim(int spotNumber, Long spotId) {
+            if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+                return;
+            }
+            inFlight.incrementAndGet();
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    inFlight.decrementAndGet();
+                    if (status != STATUS_COMMITTED) {
+                        release(garageId, floor, spotNumber, spotId);
+                    }
+                }
+            });
+        }
+    }
+}
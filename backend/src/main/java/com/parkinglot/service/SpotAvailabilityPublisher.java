@@ -0,0 +1,115 @@
+package com.parkinglot.service;
+
+import com.parkinglot.dto.SpotStatusEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Pushes spot availability to Server-Sent Events subscribers: a snapshot of the free spots on subscribe,
+ * then one event per committed park/leave. Every subscriber has its own bounded queue drained on a
+ * virtual thread, so park/leave transactions never wait on subscribers, a slow subscriber only delays
+ * itself, and each subscriber sees its events in commit order.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SpotAvailabilityPublisher {
+
+    private final SpotAllocator spotAllocator;
+
+    @Value("${parking.stream.timeout-ms:1800000}")
+    private long timeoutMs = 1_800_000;
+
+    // Events a subscriber may fall behind by before it is disconnected and has to resync
+    @Value("${parking.stream.subscriber-buffer:1000}")
+    private int subscriberBuffer = 1000;
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    private final ExecutorService senders = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("spot-availability-sender-", 0).factory());
+
+    public SseEmitter subscribe(Long garageId, Integer floor) {
+        SseEmitter emitter = new SseEmitter(timeoutMs);
+        Subscriber subscriber = new Subscriber(emitter, garageId, floor, new ArrayBlockingQueue<>(subscriberBuffer + 1));
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+
+        // Snapshot is queued before the subscriber can receive deltas, so no delta can overtake it. It is
+        // read when sent; deltas committed in between are repeated, which is harmless as they carry the state
+        subscriber.pending.add(() -> SseEmitter.event().name("snapshot").data(spotAllocator.freeSpots(garageId, floor)));
+        subscribers.add(subscriber);
+        drain(subscriber);
+        return emitter;
+    }
+
+    @TransactionalEventListener
+    public void onSpotStatusChanged(SpotStatusEvent event) {
+        for (Subscriber subscriber : subscribers) {
+            if (!subscriber.garageId.equals(event.getGarageId())
+                    || subscriber.floor != null && !subscriber.floor.equals(event.getFloor())) {
+                continue;
+            }
+            if (subscriber.pending.offer(() -> SseEmitter.event().name("spot").data(event))) {
+                drain(subscriber);
+            } else {
+                log.warn("Availability subscriber fell {} events behind, disconnecting it", subscriberBuffer);
+                subscribers.remove(subscriber);
+                subscriber.emitter.complete();
+            }
+        }
+    }
+
+    // Starts a sender for the subscriber unless one is already running
+    private void drain(Subscriber subscriber) {
+        if (subscriber.draining.compareAndSet(false, true)) {
+            senders.execute(() -> send(subscriber));
+        }
+    }
+
+    private void send(Subscriber subscriber) {
+        do {
+            Supplier<SseEmitter.SseEventBuilder> next;
+            while ((next = subscriber.pending.poll()) != null) {
+                try {
+                    subscriber.emitter.send(next.get());
+                } catch (IOException | IllegalStateException e) {
+                    subscribers.remove(subscriber);
+                    subscriber.pending.clear();
+                    subscriber.emitter.completeWithError(e);
+                }
+            }
+            subscriber.draining.set(false);
+            // An event queued after the last poll but before the flag was cleared still gets a sender
+        } while (!subscriber.pending.isEmpty() && subscriber.draining.compareAndSet(false, true));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdownNow();
+    }
+
+    private record Subscriber(SseEmitter emitter, Long garageId, Integer floor,
+                              BlockingQueue<Supplier<SseEmitter.SseEventBuilder>> pending, AtomicBoolean draining) {
+
+        Subscriber(SseEmitter emitter, Long garageId, Integer floor, BlockingQueue<Supplier<SseEmitter.SseEventBuilder>> pending) {
+            this(emitter, garageId, floor, pending, new AtomicBoolean());
+        }
+    }
+}
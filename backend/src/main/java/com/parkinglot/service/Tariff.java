@@ -0,0 +1,83 @@
+package com.parkinglot.service;
+
+import com.parkinglot.config.TariffProperties;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Immutable, precompiled form of the tariff. Minute-of-day rates are folded into a cumulative array,
+ * so the charge for any part of a day is one subtraction and pricing a session costs O(days parked),
+ * with no lookups outside this object. Sessions are charged per started minute.
+ */
+public final class Tariff {
+    
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    
+    // cumulative[m] = sum of the hourly rates (cents) of minutes [0, m), i.e. the cost in 1/60 cent
+    private final long[] cumulative = new long[MINUTES_PER_DAY + 1];
+    private final Map<Integer, Integer> floorRatePercent;
+    // Daily cap in the unit used while pricing: 1/60 cent times percent
+    private final long dailyCap;
+    
+    public Tariff(TariffProperties properties) {
+        long[] ratePerMinute = new long[MINUTES_PER_DAY];
+        Arrays.fill(ratePerMinute, properties.getDefaultRatePerHourCents());
+        for (TariffProperties.Band band : properties.getBands()) {
+            int from = minuteOfDay(band.getFrom());
+            int to = minuteOfDay(band.getTo());
+            // Checked after each minute, so a band with from == to covers all 24 hours
+            int m = from;
+            do {
+                ratePerMinute[m] = band.getRatePerHourCents();
+                m = (m + 1) % MINUTES_PER_DAY;
+            } while (m != to);
+        }
+        for (int m = 0; m < MINUTES_PER_DAY; m++) {
+            cumulative[m + 1] = cumulative[m] + ratePerMinute[m];
+        }
+        floorRatePercent = Map.copyOf(properties.getFloorRatePercent());
+        dailyCap = properties.getDailyCapCents() > 0 ? properties.getDailyCapCents() * 60 * 100 : Long.MAX_VALUE;
+    }
+    
+    /**
+     * Charge in cents for parking on the given floor from start to end.
+     */
+    public long price(int floor, LocalDateTime start, LocalDateTime end) {
+        LocalDateTime from = start.truncatedTo(ChronoUnit.MINUTES);
+        LocalDateTime to = end.truncatedTo(ChronoUnit.MINUTES);
+        if (to.isBefore(end)) {
+            to = to.plusMinutes(1);
+        }
+        if (!to.isAfter(from)) {
+            return 0;
+        }
+        
+        int percent = floorRatePercent.getOrDefault(floor, 100);
+        LocalDate day = from.toLocalDate();
+        LocalDate lastDay = to.toLocalDate();
+        int fromMinute = minuteOfDay(from.toLocalTime());
+        long total = 0;
+        while (day.isBefore(lastDay)) {
+            total += dayCharge(fromMinute, MINUTES_PER_DAY, percent);
+            day = day.plusDays(1);
+            fromMinute = 0;
+        }
+        total += dayCharge(fromMinute, minuteOfDay(to.toLocalTime()), percent);
+        
+        // Back to cents, rounding up
+        return (total + 5999) / 6000;
+    }
+    
+    private long dayCharge(int fromMinute, int toMinute, int percent) {
+        return Math.min((cumulative[toMinute] - cumulative[fromMinute]) * percent, dailyCap);
+    }
+    
+    private static int minuteOfDay(LocalTime time) {
+        return time.getHour() * 60 + time.getMinute();
+    }
+}
@@ -0,0 +1,64 @@
+package com.parkinglot.tracing;
+
+import com.parkinglot.jdbc.SqlTrace;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Opens an {@link SqlTrace} around each request. The statement count goes to the http.server.requests.sql
+ * summary (tagged with the same method and uri pattern as http.server.requests) and the whole trace is
+ * offered to {@link TraceRecorder}. Work done after the response is handed to another thread (streamed
+ * exports, SSE) is not counted.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+@RequiredArgsConstructor
+public class RequestTraceFilter extends OncePerRequestFilter {
+    
+    private final MeterRegistry meterRegistry;
+    private final TraceRecorder traceRecorder;
+    
+    // "method uri" -> summary
+    private final Map<String, DistributionSummary> summaries = new ConcurrentHashMap<>();
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        long startedAt = System.currentTimeMillis();
+        long start = System.nanoTime();
+        SqlTrace trace = SqlTrace.start(traceRecorder.slowStatementNanos());
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            SqlTrace.stop();
+            long duration = System.nanoTime() - start;
+            Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+            String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+            summaryFor(request.getMethod(), uri).record(trace.getStatements());
+            traceRecorder.offer(startedAt, request.getMethod(), uri, response.getStatus(), duration, trace);
+        }
+    }
+    
+    private DistributionSummary summaryFor(String method, String uri) {
+        return summaries.computeIfAbsent(method + ' ' + uri, key -> DistributionSummary.builder("http.server.requests.sql")
+                .baseUnit("statements")
+                .tags("method", method, "uri", uri)
+                .publishPercentileHistogram()
+                .maximumExpectedValue(1000.0)
+                .register(meterRegistry));
+    }
+}
@@ -0,0 +1,195 @@
+package com.parkinglot.tracing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.parkinglot.dto.RequestTraceDTO;
+import com.parkinglot.jdbc.SqlTrace;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps request traces (SQL count and time, slow statements) in a ring buffer and writes them out as
+ * JSON lines from a background thread, so request threads never block on I/O. Slow requests are always
+ * kept and the rest are sampled; either way at most max-per-second traces are kept, so the cost stays
+ * flat under load.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TraceRecorder {
+    
+    // Flushed traces go to this logger unless tracing.file is set
+    private static final Logger TRACE_LOG = LoggerFactory.getLogger("sql-trace");
+    
+    private final ObjectMapper objectMapper;
+    
+    @Value("${tracing.enabled:true}")
+    private boolean enabled = true;
+    
+    @Value("${tracing.sample-rate:0.01}")
+    private double sampleRate = 0.01;
+    
+    @Value("${tracing.max-per-second:100}")
+    private int maxPerSecond = 100;
+    
+    @Value("${tracing.slow-request-ms:500}")
+    private long slowRequestMs = 500;
+    
+    @Value("${tracing.slow-statement-ms:50}")
+    private long slowStatementMs = 50;
+    
+    @Value("${tracing.buffer-size:4096}")
+    private int bufferSize = 4096;
+    
+    @Value("${tracing.flush-interval-ms:1000}")
+    private long flushIntervalMs = 1000;
+    
+    @Value("${tracing.file:}")
+    private String file = "";
+    
+    private TraceRingBuffer buffer;
+    private ScheduledExecutorService flusher;
+    private BufferedWriter writer;
+    
+    // Per-second budget of kept traces
+    private final AtomicLong budgetSecond = new AtomicLong();
+    private final AtomicInteger budgetUsed = new AtomicInteger();
+    
+    private final LongAdder overBudget = new LongAdder();
+    private long flushedSequence;
+    private long overwritten;
+    
+    @PostConstruct
+    void start() throws IOException {
+        buffer = new TraceRingBuffer(bufferSize);
+        if (!file.isBlank()) {
+            writer = Files.newBufferedWriter(Path.of(file), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "trace-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+    }
+    
+    public long slowStatementNanos() {
+        return TimeUnit.MILLISECONDS.toNanos(slowStatementMs);
+    }
+    
+    /**
+     * Called on the request thread once the response is done; decides whether to keep the trace.
+     */
+    public void offer(long startedAtMillis, String method, String uri, int status, long durationNanos, SqlTrace sql) {
+        if (!enabled) {
+            return;
+        }
+        boolean slow = durationNanos >= TimeUnit.MILLISECONDS.toNanos(slowRequestMs) || sql.hasSlowStatements();
+        if (!slow && ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return;
+        }
+        if (!withinBudget()) {
+            overBudget.increment();
+            return;
+        }
+        buffer.add(new RequestTraceDTO(null, Instant.ofEpochMilli(startedAtMillis), method, uri, status,
+                durationNanos / 1e6, sql.getStatements(), sql.getNanos() / 1e6, sql.getSlowStatements()));
+    }
+    
+    private boolean withinBudget() {
+        long second = System.nanoTime() / 1_000_000_000L;
+        long current = budgetSecond.get();
+        if (current != second && budgetSecond.compareAndSet(current, second)) {
+            budgetUsed.set(0);
+        }
+        return budgetUsed.incrementAndGet() <= maxPerSecond;
+    }
+    
+    /**
+     * Most recent traces first, optionally only those at least {@code minDurationMs} long or for URIs containing {@code uri}.
+     */
+    public List<RequestTraceDTO> recent(int limit, double minDurationMs, String uri) {
+        List<RequestTraceDTO> traces = new ArrayList<>();
+        long end = buffer.nextSequence();
+        for (long sequence = end - 1; sequence >= Math.max(0, end - buffer.capacity()) && traces.size() < limit; sequence--) {
+            TraceRingBuffer.Entry entry = buffer.slot(sequence);
+            if (entry == null || entry.sequence() != sequence) {
+                continue;
+            }
+            RequestTraceDTO trace = entry.trace();
+            if (trace.getDurationMs() >= minDurationMs && (uri == null || trace.getUri().contains(uri))) {
+                traces.add(trace);
+            }
+        }
+        return traces;
+    }
+    
+    synchronized void flush() {
+        long end = buffer.nextSequence();
+        long sequence = Math.max(flushedSequence, end - buffer.capacity());
+        overwritten += sequence - flushedSequence;
+        try {
+            for (; sequence < end; sequence++) {
+                TraceRingBuffer.Entry entry = buffer.slot(sequence);
+                if (entry == null || entry.sequence() < sequence) {
+                    // Claimed but not yet published; picked up by the next flush
+                    break;
+                }
+                if (entry.sequence() > sequence) {
+                    overwritten++;
+                    continue;
+                }
+                String json = objectMapper.writeValueAsString(entry.trace());
+                if (writer != null) {
+                    writer.write(json);
+                    writer.newLine();
+                } else {
+                    TRACE_LOG.info(json);
+                }
+            }
+            if (writer != null) {
+                writer.flush();
+            }
+        } catch (IOException e) {
+            log.warn("Could not write request traces: {}", e.getMessage());
+        } finally {
+            flushedSequence = sequence;
+        }
+        long dropped = overBudget.sumThenReset();
+        if (dropped > 0 || overwritten > 0) {
+            log.info("Request tracing skipped {} traces over the per-second budget and lost {} overwritten before flush",
+                    dropped, overwritten);
+            overwritten = 0;
+        }
+    }
+    
+    @PreDestroy
+    void shutdown() throws IOException {
+        flusher.shutdown();
+        flush();
+        if (writer != null) {
+            writer.close();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.parkinglot.tracing;
+
+import com.parkinglot.dto.RequestTraceDTO;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Fixed-size, lock-free ring of the most recent request traces. Writers claim a sequence number with one
+ * atomic increment and publish into its slot; old entries are overwritten, never waited for. Readers
+ * check each slot's sequence, so they can tell a slot not yet published from one already overwritten.
+ */
+class TraceRingBuffer {
+    
+    private final AtomicReferenceArray<Entry> slots;
+    private final int mask;
+    private final AtomicLong nextSequence = new AtomicLong();
+    
+    TraceRingBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+    
+    long add(RequestTraceDTO trace) {
+        long sequence = nextSequence.getAndIncrement();
+        trace.setSequence(sequence);
+        slots.set((int) (sequence & mask), new Entry(sequence, trace));
+        return sequence;
+    }
+    
+    /**
+     * Sequence the next trace will get; everything below it has been claimed by a writer.
+     */
+    long nextSequence() {
+        return nextSequence.get();
+    }
+    
+    int capacity() {
+        return mask + 1;
+    }
+    
+    /**
+     * The slot that {@code sequence} maps to. Its entry may be older (not yet published) or newer (overwritten).
+     */
+    Entry slot(long sequence) {
+        return slots.get((int) (sequence & mask));
+    }
+    
+    record Entry(long sequence, RequestTraceDTO trace) {
+    }
+}
@@ -0,0 +1,111 @@
+package com.parkinglot.security;
+
+import com.parkinglot.controller.AuthController;
+import com.parkinglot.dto.ErrorResponse;
+import com.parkinglot.dto.RegisterRequest;
+import com.parkinglot.repository.UserRepository;
+import com.parkinglot.service.AuthService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+/**
+ * With its one hashing thread busy and its one queue slot taken, the encoder turns further work away at
+ * once with AUTH_BUSY, which the auth endpoints answer with 429.
+ */
+class BoundedPasswordEncoderTest {
+    
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ExecutorService callers = Executors.newFixedThreadPool(2);
+    
+    private BoundedPasswordEncoder encoder;
+    private Future<String> running;
+    private Future<String> queued;
+    
+    @BeforeEach
+    void saturate() throws Exception {
+        encoder = new BoundedPasswordEncoder(new BlockingEncoder(), 1, 1);
+        encoder.bindTo(registry);
+        
+        running = callers.submit(() -> encoder.encode("first"));
+        assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+        queued = callers.submit(() -> encoder.encode("second"));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (registry.get("auth.password.queue.size").gauge().value() < 1) {
+            assertThat(System.nanoTime()).isLessThan(deadline);
+            Thread.sleep(1);
+        }
+    }
+    
+    @AfterEach
+    void shutdown() {
+        release.countDown();
+        callers.shutdownNow();
+        encoder.shutdown();
+    }
+    
+    @Test
+    void refusesWorkWhenSaturated() throws Exception {
+        assertThatThrownBy(() -> encoder.encode("third")).hasMessage(BoundedPasswordEncoder.BUSY);
+        assertThatThrownBy(() -> encoder.matches("third", "hash")).hasMessage(BoundedPasswordEncoder.BUSY);
+        assertThat(registry.get("auth.password.rejected").counter().count()).isEqualTo(2);
+        
+        // Accepted work still completes, and once it has the encoder takes new work again
+        release.countDown();
+        assertThat(running.get(10, TimeUnit.SECONDS)).isEqualTo("hashed:first");
+        assertThat(queued.get(10, TimeUnit.SECONDS)).isEqualTo("hashed:second");
+        assertThat(encoder.encode("third")).isEqualTo("hashed:third");
+    }
+    
+    @Test
+    void registrationIsAnsweredWithTooManyRequests() {
+        UserRepository userRepository = mock(UserRepository.class);
+        AuthService authService = new AuthService(userRepository, encoder, null, null, null);
+        AuthController controller = new AuthController(authService);
+        
+        ResponseEntity<?> response = controller.register(
+                new RegisterRequest("Busy", "Driver", "busy@x.test", "password"));
+        
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        assertThat(response.getBody()).isInstanceOfSatisfying(ErrorResponse.class,
+                body -> assertThat(body.getError()).isEqualTo(BoundedPasswordEncoder.BUSY));
+    }
+    
+    // Holds every call until released, so the hashing thread stays taken for as long as the test needs
+    private class BlockingEncoder implements PasswordEncoder {
+        
+        @Override
+        public String encode(CharSequence rawPassword) {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return "hashed:" + rawPassword;
+        }
+        
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return encode(rawPassword).equals(encodedPassword);
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.parkinglot.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OccupancySeriesTest {
+    
+    private static final int HOUR = OccupancySeries.SECONDS_PER_HOUR;
+    // Matches the series' block size, so tests can straddle a block boundary
+    private static final long BLOCK_HOURS = 1024;
+    
+    private final OccupancySeries series = new OccupancySeries();
+    
+    @Test
+    void splitsOccupancyAtHourBoundaries() {
+        // 10:30 to 12:15
+        series.add(10 * HOUR + 1800, 12 * HOUR + 900);
+        
+        Map<Long, long[]> hours = collect(series, 0, 24);
+        assertThat(hours.get(10L)).containsExactly(1800, 1, 0, 0);
+        assertThat(hours.get(11L)).containsExactly(3600, 0, 0, 0);
+        assertThat(hours.get(12L)).containsExactly(900, 0, 1, 6300);
+    }
+    
+    @Test
+    void departureOnTheHourCountsInTheNextHour() {
+        series.add(10 * HOUR, 11 * HOUR);
+        
+        Map<Long, long[]> hours = collect(series, 0, 24);
+        assertThat(hours.get(10L)).containsExactly(3600, 1, 0, 0);
+        assertThat(hours.get(11L)).containsExactly(0, 0, 1, 3600);
+    }
+    
+    @Test
+    void endBeforeStartCountsAsZeroLength() {
+        series.add(10 * HOUR + 600, 10 * HOUR);
+        
+        assertThat(collect(series, 0, 24).get(10L)).containsExactly(0, 1, 1, 0);
+    }
+    
+    @Test
+    void sessionsMayStraddleBlocks() {
+        long lastHourOfBlock = BLOCK_HOURS - 1;
+        series.add(lastHourOfBlock * HOUR + 1800, (lastHourOfBlock + 1) * HOUR + 1200);
+        
+        Map<Long, long[]> hours = collect(series, lastHourOfBlock, lastHourOfBlock + 2);
+        assertThat(hours).containsOnlyKeys(lastHourOfBlock, lastHourOfBlock + 1);
+        assertThat(hours.get(lastHourOfBlock)).containsExactly(1800, 1, 0, 0);
+        assertThat(hours.get(lastHourOfBlock + 1)).containsExactly(1200, 0, 1, 3000);
+    }
+    
+    @Test
+    void visitsOnlyTheRequestedHoursOfBlocksThatExist() {
+        series.add(5 * HOUR, 6 * HOUR);
+        series.add((3 * BLOCK_HOURS + 5) * HOUR, (3 * BLOCK_HOURS + 6) * HOUR);
+        
+        // Blocks 1 and 2 were never written and are skipped
+        Map<Long, long[]> hours = collect(series, 4, 3 * BLOCK_HOURS + 6);
+        assertThat(hours).hasSize((int) BLOCK_HOURS - 4 + 6);
+        assertThat(hours.keySet()).first().isEqualTo(4L);
+        assertThat(hours.keySet()).last().isEqualTo(3 * BLOCK_HOURS + 5);
+        
+        assertThat(collect(series, 6, 5)).isEmpty();
+    }
+    
+    @Test
+    void dropsOnlyBlocksEndingBeforeTheCutoff() {
+        series.add(5 * HOUR, 6 * HOUR);
+        series.add((BLOCK_HOURS + 5) * HOUR, (BLOCK_HOURS + 6) * HOUR);
+        
+        series.dropBefore(BLOCK_HOURS - 1);
+        assertThat(collect(series, 0, BLOCK_HOURS)).containsKey(5L);
+        
+        series.dropBefore(BLOCK_HOURS);
+        assertThat(collect(series, 0, BLOCK_HOURS)).isEmpty();
+        assertThat(collect(series, BLOCK_HOURS, 2 * BLOCK_HOURS).get(BLOCK_HOURS + 5)).containsExactly(3600, 1, 0, 0);
+    }
+    
+    @Test
+    void addAllSumsBuckets() {
+        OccupancySeries other = new OccupancySeries();
+        series.add(10 * HOUR, 10 * HOUR + 600);
+        other.add(10 * HOUR + 1200, 10 * HOUR + 1500);
+        other.add((BLOCK_HOURS + 1) * HOUR, (BLOCK_HOURS + 1) * HOUR + 60);
+        
+        series.addAll(other);
+        
+        assertThat(collect(series, 10, 11).get(10L)).containsExactly(900, 2, 2, 900);
+        assertThat(collect(series, BLOCK_HOURS + 1, BLOCK_HOURS + 2).get(BLOCK_HOURS + 1)).containsExactly(60, 1, 1, 60);
+    }
+    
+    // hour -> {occupied seconds, arrivals, departures, dwell seconds}
+    private static TreeMap<Long, long[]> collect(OccupancySeries series, long fromHour, long toHour) {
+        TreeMap<Long, long[]> hours = new TreeMap<>();
+        series.forEachHour(fromHour, toHour, (hour, occupiedSeconds, arrivals, departures, dwellSeconds) ->
+                hours.put(hour, new long[]{occupiedSeconds, arrivals, departures, dwellSeconds}));
+        return hours;
+    }
+}
@@ -0,0 +1,137 @@
+package com.parkinglot.service;
+
+import com.parkinglot.dto.SensorEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OccupancyWalTest {
+    
+    private static final int HEADER_SIZE = 16;
+    private static final int SIZE = HEADER_SIZE + 8 * OccupancyWal.RECORD_SIZE;
+    private static final LocalDateTime OBSERVED = LocalDateTime.of(2024, 3, 1, 8, 15, 30, 123_000_000);
+    
+    @TempDir
+    Path dir;
+    
+    @Test
+    void recordsSurviveReopening() throws IOException {
+        Path file = dir.resolve("wal.bin");
+        try (OccupancyWal wal = new OccupancyWal(file, SIZE)) {
+            assertThat(wal.readAll()).isEmpty();
+            wal.append(List.of(event(1, true), event(2, false)));
+            wal.append(List.of(event(3, true)));
+        }
+        
+        try (OccupancyWal wal = new OccupancyWal(file, SIZE)) {
+            assertThat(wal.readAll()).containsExactly(event(1, true), event(2, false), event(3, true));
+            assertThat(wal.position()).isEqualTo(HEADER_SIZE + 3 * OccupancyWal.RECORD_SIZE);
+        }
+    }
+    
+    @Test
+    void readingStopsAtATornRecord() throws IOException {
+        Path file = dir.resolve("wal.bin");
+        try (OccupancyWal wal = new OccupancyWal(file, SIZE)) {
+            wal.append(List.of(event(1, true), event(2, true), event(3, true)));
+        }
+        // Flip a byte of the second record's spot id, as a write cut short by a crash would leave it
+        int tornOffset = HEADER_SIZE + OccupancyWal.RECORD_SIZE + 8;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer value = ByteBuffer.allocate(1);
+            channel.read(value, tornOffset);
+            value.put(0, (byte) (value.get(0) ^ 0xFF)).rewind();
+            channel.write(value, tornOffset);
+        }
+        
+        try (OccupancyWal wal = new OccupancyWal(file, SIZE)) {
+            assertThat(wal.readAll()).containsExactly(event(1, true));
+            // The next append overwrites the torn record; the record behind it must not come back
+            assertThat(wal.position()).isEqualTo(HEADER_SIZE + OccupancyWal.RECORD_SIZE);
+            wal.append(List.of(event(4, false)));
+        }
+        
+        try (OccupancyWal wal = new OccupancyWal(file, SIZE)) {
+            assertThat(wal.readAll()).containsExactly(event(1, true), event(4, false));
+            wal.append(List.of(event(5, true)));
+        }
+        
+        try (OccupancyWal wal = new OccupancyWal(file, SIZE)) {
+            assertThat(wal.readAll()).containsExactly(event(1, true), event(4, false), event(5, true));
+        }
+    }
+    
+    @Test
+    void resetDiscardsRecordsOfEarlierGenerations() throws IOException {
+        Path file = dir.resolve("wal.bin");
+        try (OccupancyWal wal = new OccupancyWal(file, SIZE)) {
+            wal.append(List.of(event(1, true), event(2, true), event(3, true)));
+            wal.reset();
+            assertThat(wal.position()).isEqualTo(HEADER_SIZE);
+        }
+        
+        try (OccupancyWal wal = new OccupancyWal(file, SIZE)) {
+            assertThat(wal.readAll()).isEmpty();
+            // Records of the old generation behind the new one are ignored
+            wal.append(List.of(event(4, false)));
+        }
+        
+        try (OccupancyWal wal = new OccupancyWal(file, SIZE)) {
+            assertThat(wal.readAll()).containsExactly(event(4, false));
+        }
+    }
+    
+    @Test
+    void replayStartsAtTheCheckpoint() throws IOException {
+        Path file = dir.resolve("wal.bin");
+        try (OccupancyWal wal = new OccupancyWal(file, SIZE)) {
+            wal.append(List.of(event(1, false), event(2, true)));
+            int covered = wal.position();
+            // Appended while the checkpoint transaction ran, so the log cannot start over
+            wal.append(List.of(event(3, true)));
+            wal.checkpoint(covered);
+        }
+        
+        try (OccupancyWal wal = new OccupancyWal(file, SIZE)) {
+            assertThat(wal.readAll()).containsExactly(event(3, true));
+            assertThat(wal.position()).isEqualTo(HEADER_SIZE + 3 * OccupancyWal.RECORD_SIZE);
+            wal.append(List.of(event(4, false)));
+        }
+        
+        try (OccupancyWal wal = new OccupancyWal(file, SIZE)) {
+            assertThat(wal.readAll()).containsExactly(event(3, true), event(4, false));
+            wal.reset();
+            wal.append(List.of(event(5, true)));
+        }
+        
+        // A reset starts replay from the front again
+        try (OccupancyWal wal = new OccupancyWal(file, SIZE)) {
+            assertThat(wal.readAll()).containsExactly(event(5, true));
+        }
+    }
+    
+    @Test
+    void hasRoomOnlyForWholeRecords() throws IOException {
+        try (OccupancyWal wal = new OccupancyWal(dir.resolve("wal.bin"), HEADER_SIZE + 2 * OccupancyWal.RECORD_SIZE)) {
+            assertThat(wal.hasRoom(2)).isTrue();
+            assertThat(wal.hasRoom(3)).isFalse();
+            
+            wal.append(List.of(event(1, true)));
+            assertThat(wal.hasRoom(1)).isTrue();
+            assertThat(wal.hasRoom(2)).isFalse();
+        }
+    }
+    
+    private static SensorEvent event(long spotId, boolean occupied) {
+        return new SensorEvent(null, spotId, occupied, OBSERVED.plusSeconds(spotId));
+    }
+}
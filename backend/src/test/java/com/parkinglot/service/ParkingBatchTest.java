@@ -0,0 +1,129 @@
+package com.parkinglot.service;
+
+import com.parkinglot.dto.BatchItemResult;
+import com.parkinglot.dto.GarageLayoutRequest;
+import com.parkinglot.dto.GarageRequest;
+import com.parkinglot.dto.ParkingHistoryDTO;
+import com.parkinglot.dto.ParkingRequest;
+import com.parkinglot.dto.ParkingSessionDTO;
+import com.parkinglot.model.Car;
+import com.parkinglot.model.User;
+import com.parkinglot.repository.CarRepository;
+import com.parkinglot.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Batch park and leave report an outcome per item: items that fail get the error code the single-item
+ * call would have given, and neither hold a spot nor keep the others from succeeding.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ParkingBatchTest {
+    
+    @Autowired
+    private ParkingService parkingService;
+    
+    @Autowired
+    private GarageService garageService;
+    
+    @Autowired
+    private GarageProvisioningService garageProvisioningService;
+    
+    @Autowired
+    private SpotAllocator spotAllocator;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private CarRepository carRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    private Long garageId;
+    private User user;
+    
+    @BeforeEach
+    void garage() {
+        String code = "batch-" + UUID.randomUUID().toString().substring(0, 8);
+        garageId = garageService.createGarage(new GarageRequest(code, "Batch " + code)).getId();
+        garageProvisioningService.provision(garageId, new GarageLayoutRequest(List.of(
+                new GarageLayoutRequest.FloorLayout(1, 2))));
+        
+        user = new User();
+        user.setFirstName("Batch");
+        user.setLastName("Driver");
+        user.setEmail(UUID.randomUUID() + "@batch.test");
+        user.setPassword("unused");
+        user = userRepository.save(user);
+    }
+    
+    @Test
+    void parkBatchWithMixedOutcomes() {
+        Long parked = car("A");
+        Long arriving = car("B");
+        Long turnedAway = car("C");
+        parkingService.parkCar(user.getId(), garageId, new ParkingRequest(parked, null, null, null));
+        
+        List<BatchItemResult<ParkingSessionDTO>> results = parkingService.parkCars(user.getId(), garageId, List.of(
+                new ParkingRequest(parked, null, null, null),
+                new ParkingRequest(arriving, null, null, null),
+                new ParkingRequest(turnedAway, null, null, null)));
+        
+        assertThat(results).extracting(BatchItemResult::getIndex).containsExactly(0, 1, 2);
+        assertThat(results).extracting(BatchItemResult::getError)
+                .containsExactly("CAR_ALREADY_PARKED", null, "NO_SPOTS_AVAILABLE");
+        assertThat(results.get(1).getResult().getCar().getId()).isEqualTo(arriving);
+        assertThat(results.get(0).getResult()).isNull();
+        assertThat(results.get(2).getResult()).isNull();
+        
+        assertThat(jdbcTemplate.queryForList(
+                "select car_id from parking_sessions where garage_id = ? and active = true", Long.class, garageId))
+                .containsExactlyInAnyOrder(parked, arriving);
+        assertThat(jdbcTemplate.queryForObject(
+                "select count(*) from parking_spots where garage_id = ? and occupied = false", Integer.class, garageId)).isZero();
+        assertThat(spotAllocator.freeSpots(garageId, null)).isEmpty();
+    }
+    
+    @Test
+    void leaveBatchClosesADuplicateSessionOnce() {
+        Long first = parkingService.parkCar(user.getId(), garageId, new ParkingRequest(car("A"), null, null, null))
+                .getParkingSessionId();
+        Long second = parkingService.parkCar(user.getId(), garageId, new ParkingRequest(car("B"), null, null, null))
+                .getParkingSessionId();
+        
+        List<BatchItemResult<ParkingHistoryDTO>> results = parkingService.leaveParkingSpots(user.getId(),
+                List.of(first, second, first));
+        
+        assertThat(results).extracting(BatchItemResult::getError).containsExactly(null, null, "Session not found");
+        assertThat(results.get(0).getResult().getParkingSessionId()).isEqualTo(first);
+        assertThat(results.get(1).getResult().getParkingSessionId()).isEqualTo(second);
+        
+        assertThat(jdbcTemplate.queryForObject(
+                "select count(*) from parking_sessions where garage_id = ? and active = false and amount_cents is not null",
+                Integer.class, garageId)).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject(
+                "select count(*) from parking_spots where garage_id = ? and occupied = false", Integer.class, garageId)).isEqualTo(2);
+        assertThat(spotAllocator.freeSpots(garageId, null)).hasSize(2).doesNotHaveDuplicates();
+    }
+    
+    private Long car(String suffix) {
+        Car car = new Car();
+        car.setLicensePlate("BT" + user.getId() + suffix);
+        car.setMake("Make");
+        car.setModel("Model");
+        car.setUser(user);
+        return carRepository.save(car).getId();
+    }
+}
@@ -0,0 +1,202 @@
+package com.parkinglot.service;
+
+import com.parkinglot.dto.BatchItemResult;
+import com.parkinglot.dto.GarageLayoutRequest;
+import com.parkinglot.dto.GarageRequest;
+import com.parkinglot.dto.ParkingHistoryDTO;
+import com.parkinglot.dto.ParkingRequest;
+import com.parkinglot.model.Car;
+import com.parkinglot.model.User;
+import com.parkinglot.repository.CarRepository;
+import com.parkinglot.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.LongFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Many drivers arriving at once at a garage with fewer free spots than drivers: every spot is handed
+ * out exactly once and everyone else is told the garage is full. Likewise a session left many times at
+ * once is closed, billed and freed exactly once.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ParkingConcurrencyTest {
+    
+    private static final int THREADS = 16;
+    
+    @Autowired
+    private ParkingService parkingService;
+    
+    @Autowired
+    private GarageService garageService;
+    
+    @Autowired
+    private GarageProvisioningService garageProvisioningService;
+    
+    @Autowired
+    private OccupancyCounters occupancyCounters;
+    
+    @Autowired
+    private SpotAllocator spotAllocator;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private CarRepository carRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    @Test
+    void autoAssignedArrivalsNeverShareASpot() throws Exception {
+        Long garageId = garage(new GarageLayoutRequest.FloorLayout(1, 3), new GarageLayoutRequest.FloorLayout(2, 3));
+        int freeSpots = 6;
+        
+        Map<String, AtomicInteger> outcomes = parkConcurrently(garageId, carId -> new ParkingRequest(carId, null, null, null));
+        
+        assertThat(outcomes.get("success")).hasValue(freeSpots);
+        assertThat(outcomes.get("NO_SPOTS_AVAILABLE")).hasValue(THREADS - freeSpots);
+        assertNoSpotBookedTwice(garageId, freeSpots);
+        assertThat(jdbcTemplate.queryForObject(
+                "select count(*) from parking_spots where garage_id = ? and occupied = false", Integer.class, garageId)).isZero();
+    }
+    
+    @Test
+    void onlyOneArrivalGetsARequestedSpot() throws Exception {
+        Long garageId = garage(new GarageLayoutRequest.FloorLayout(1, 4));
+        
+        Map<String, AtomicInteger> outcomes = parkConcurrently(garageId, carId -> new ParkingRequest(carId, 1, 2, null));
+        
+        assertThat(outcomes.get("success")).hasValue(1);
+        assertThat(outcomes.get("SPOT_ALREADY_OCCUPIED")).hasValue(THREADS - 1);
+        assertNoSpotBookedTwice(garageId, 1);
+    }
+    
+    @Test
+    void concurrentLeavesCloseASessionOnce() throws Exception {
+        Long garageId = garage(new GarageLayoutRequest.FloorLayout(1, 3));
+        long[] driver = driver();
+        Long sessionId = parkingService.parkCar(driver[0], garageId, new ParkingRequest(driver[1], null, null, null))
+                .getParkingSessionId();
+        
+        // Half of the leaves go through the batch path, which reports failures per item instead of throwing
+        List<Callable<String>> leaves = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            if (i % 2 == 0) {
+                leaves.add(() -> {
+                    parkingService.leaveParkingSpot(driver[0], sessionId);
+                    return "success";
+                });
+            } else {
+                leaves.add(() -> {
+                    BatchItemResult<ParkingHistoryDTO> result = parkingService.leaveParkingSpots(driver[0], List.of(sessionId)).get(0);
+                    return result.getError() == null ? "success" : result.getError();
+                });
+            }
+        }
+        Map<String, AtomicInteger> outcomes = concurrently(leaves);
+        
+        assertThat(outcomes.get("success")).hasValue(1);
+        assertThat(outcomes.get("Session not found")).hasValue(THREADS - 1);
+        assertThat(occupancyCounters.getSummary(garageId)).singleElement()
+                .satisfies(floor -> assertThat(floor.getFreeSpots()).isEqualTo(3));
+        assertThat(spotAllocator.freeSpots(garageId, null)).hasSize(3).doesNotHaveDuplicates();
+        assertThat(jdbcTemplate.queryForObject(
+                "select count(*) from parking_sessions where id = ? and active = false and amount_cents is not null",
+                Integer.class, sessionId)).isEqualTo(1);
+    }
+    
+    private Long garage(GarageLayoutRequest.FloorLayout... floors) {
+        String code = "stress-" + UUID.randomUUID().toString().substring(0, 8);
+        Long garageId = garageService.createGarage(new GarageRequest(code, "Stress " + code)).getId();
+        garageProvisioningService.provision(garageId, new GarageLayoutRequest(List.of(floors)));
+        return garageId;
+    }
+    
+    // One driver with one car per thread, all arriving at the same time
+    private Map<String, AtomicInteger> parkConcurrently(Long garageId, LongFunction<ParkingRequest> request)
+            throws Exception {
+        List<Callable<String>> arrivals = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            long[] driver = driver();
+            arrivals.add(() -> {
+                parkingService.parkCar(driver[0], garageId, request.apply(driver[1]));
+                return "success";
+            });
+        }
+        return concurrently(arrivals);
+    }
+    
+    // Runs the tasks on one thread each, all released at the same time; counts outcomes by error code
+    private Map<String, AtomicInteger> concurrently(List<Callable<String>> tasks) throws Exception {
+        Map<String, AtomicInteger> outcomes = new ConcurrentHashMap<>();
+        outcomes.put("success", new AtomicInteger());
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(tasks.size());
+        try {
+            List<Future<?>> running = new ArrayList<>();
+            for (Callable<String> task : tasks) {
+                running.add(executor.submit(() -> {
+                    start.await();
+                    String outcome;
+                    try {
+                        outcome = task.call();
+                    } catch (RuntimeException e) {
+                        outcome = e.getMessage();
+                    }
+                    outcomes.computeIfAbsent(outcome, key -> new AtomicInteger()).incrementAndGet();
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> task : running) {
+                task.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return outcomes;
+    }
+    
+    private void assertNoSpotBookedTwice(Long garageId, int expectedSessions) {
+        List<Long> activeSpotIds = jdbcTemplate.queryForList(
+                "select active_spot_id from parking_sessions where garage_id = ? and active = true", Long.class, garageId);
+        assertThat(activeSpotIds).hasSize(expectedSessions).doesNotHaveDuplicates();
+    }
+    
+    // {user id, car id}
+    private long[] driver() {
+        User user = new User();
+        user.setFirstName("Stress");
+        user.setLastName("Driver");
+        user.setEmail(UUID.randomUUID() + "@stress.test");
+        user.setPassword("unused");
+        user = userRepository.save(user);
+        
+        Car car = new Car();
+        car.setLicensePlate("ST" + user.getId());
+        car.setMake("Make");
+        car.setModel("Model");
+        car.setUser(user);
+        car = carRepository.save(car);
+        return new long[]{user.getId(), car.getId()};
+    }
+}
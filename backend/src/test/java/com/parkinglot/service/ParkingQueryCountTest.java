@@ -0,0 +1,107 @@
+package com.parkinglot.service;
+
+import com.parkinglot.dto.GarageLayoutRequest;
+import com.parkinglot.dto.GarageRequest;
+import com.parkinglot.dto.ParkingRequest;
+import com.parkinglot.dto.ParkingSessionDTO;
+import com.parkinglot.dto.ParkingSpotDTO;
+import com.parkinglot.model.Car;
+import com.parkinglot.model.User;
+import com.parkinglot.repository.CarRepository;
+import com.parkinglot.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Spot and session listings are projected straight into DTOs, so each costs one statement no matter
+ * how many rows it returns.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ParkingQueryCountTest {
+    
+    private static final int CARS = 5;
+    
+    @Autowired
+    private ParkingService parkingService;
+    
+    @Autowired
+    private GarageService garageService;
+    
+    @Autowired
+    private GarageProvisioningService garageProvisioningService;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private CarRepository carRepository;
+    
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    
+    private Statistics statistics;
+    private Long garageId;
+    private Long userId;
+    
+    @BeforeEach
+    void parkCars() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        
+        String code = "count-" + UUID.randomUUID().toString().substring(0, 8);
+        garageId = garageService.createGarage(new GarageRequest(code, "Count " + code)).getId();
+        garageProvisioningService.provision(garageId, new GarageLayoutRequest(List.of(
+                new GarageLayoutRequest.FloorLayout(1, 10), new GarageLayoutRequest.FloorLayout(2, 10))));
+        
+        User user = new User();
+        user.setFirstName("Count");
+        user.setLastName("Driver");
+        user.setEmail(UUID.randomUUID() + "@count.test");
+        user.setPassword("unused");
+        userId = userRepository.save(user).getId();
+        for (int i = 0; i < CARS; i++) {
+            Car car = new Car();
+            car.setLicensePlate("CT" + userId + "-" + i);
+            car.setMake("Make");
+            car.setModel("Model");
+            car.setUser(user);
+            Long carId = carRepository.save(car).getId();
+            parkingService.parkCar(userId, garageId, new ParkingRequest(carId, null, null, null));
+        }
+    }
+    
+    @Test
+    void availableSpotsTakeOneStatement() {
+        statistics.clear();
+        
+        List<ParkingSpotDTO> spots = parkingService.getAvailableSpots(garageId, null);
+        
+        assertThat(spots).hasSize(20 - CARS);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+    
+    @Test
+    void activeSessionsTakeOneStatement() {
+        statistics.clear();
+        
+        List<ParkingSessionDTO> sessions = parkingService.getActiveSessions(userId);
+        
+        assertThat(sessions).hasSize(CARS)
+                .allSatisfy(session -> {
+                    assertThat(session.getCar().getLicensePlate()).startsWith("CT" + userId);
+                    assertThat(session.getSpot().getOccupied()).isTrue();
+                });
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,71 @@
+package com.parkinglot.service;
+
+import com.parkinglot.repository.ReservationRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class ReservationIndexTest {
+    
+    private static final long SPOT = 7;
+    private static final LocalDateTime DAY = LocalDateTime.of(2024, 3, 4, 0, 0);
+    
+    private final ReservationIndex index = new ReservationIndex(mock(ReservationRepository.class), mock(TransactionTemplate.class));
+    
+    @Test
+    void bookingsMayTouchButNotOverlap() {
+        assertThat(index.tryBook(SPOT, at(10), at(12))).isTrue();
+        
+        // End times are exclusive
+        assertThat(index.tryBook(SPOT, at(12), at(14))).isTrue();
+        assertThat(index.tryBook(SPOT, at(8), at(10))).isTrue();
+        
+        assertThat(index.tryBook(SPOT, at(9), at(11))).isFalse();
+        assertThat(index.tryBook(SPOT, at(11), at(13))).isFalse();
+        assertThat(index.tryBook(SPOT, at(10).plusMinutes(30), at(11))).isFalse();
+        assertThat(index.tryBook(SPOT, at(7), at(15))).isFalse();
+        assertThat(index.tryBook(SPOT, at(10), at(12))).isFalse();
+    }
+    
+    @Test
+    void overlapIsCheckedAgainstTheLatestEarlierBooking() {
+        index.tryBook(SPOT, at(8), at(9));
+        index.tryBook(SPOT, at(10), at(16));
+        index.tryBook(SPOT, at(17), at(18));
+        
+        assertThat(index.isBooked(SPOT, at(9), at(10))).isFalse();
+        assertThat(index.isBooked(SPOT, at(15), at(17))).isTrue();
+        assertThat(index.isBooked(SPOT, at(16), at(17))).isFalse();
+        assertThat(index.isBooked(SPOT, at(16), at(17).plusMinutes(1))).isTrue();
+        assertThat(index.isBooked(SPOT + 1, at(10), at(16))).isFalse();
+    }
+    
+    @Test
+    void removedBookingFreesItsTime() {
+        index.tryBook(SPOT, at(10), at(12));
+        
+        index.remove(SPOT, at(10), at(12));
+        
+        assertThat(index.isBooked(SPOT, at(10), at(12))).isFalse();
+        assertThat(index.tryBook(SPOT, at(11), at(13))).isTrue();
+    }
+    
+    @Test
+    void spotIsHeldAheadOfItsBooking() {
+        index.tryBook(SPOT, at(12), at(14));
+        
+        // Default hold window is two hours
+        assertThat(index.isHeld(SPOT, at(9))).isFalse();
+        assertThat(index.isHeld(SPOT, at(10).plusMinutes(1))).isTrue();
+        assertThat(index.isHeld(SPOT, at(13))).isTrue();
+        assertThat(index.isHeld(SPOT, at(14))).isFalse();
+    }
+    
+    private static LocalDateTime at(int hour) {
+        return DAY.withHour(hour);
+    }
+}
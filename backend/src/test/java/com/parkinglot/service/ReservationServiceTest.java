@@ -0,0 +1,176 @@
+package com.parkinglot.service;
+
+import com.parkinglot.dto.GarageLayoutRequest;
+import com.parkinglot.dto.GarageRequest;
+import com.parkinglot.dto.ParkingRequest;
+import com.parkinglot.dto.ReservationDTO;
+import com.parkinglot.dto.ReservationRequest;
+import com.parkinglot.model.Car;
+import com.parkinglot.model.ReservationStatus;
+import com.parkinglot.model.User;
+import com.parkinglot.repository.CarRepository;
+import com.parkinglot.repository.ReservationRepository;
+import com.parkinglot.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Reservations keep their spot for their window only: overlapping bookings are refused, the booking can
+ * be used to park from shortly before its start until its end, and auto-assigned arrivals leave a spot
+ * alone once its booking is near.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class ReservationServiceTest {
+    
+    @Autowired
+    private ReservationService reservationService;
+    
+    @Autowired
+    private ParkingService parkingService;
+    
+    @Autowired
+    private GarageService garageService;
+    
+    @Autowired
+    private GarageProvisioningService garageProvisioningService;
+    
+    @Autowired
+    private ReservationRepository reservationRepository;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private CarRepository carRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    private Long garageId;
+    private User user;
+    private LocalDateTime now;
+    
+    @BeforeEach
+    void garage() {
+        String code = "reserve-" + UUID.randomUUID().toString().substring(0, 8);
+        garageId = garageService.createGarage(new GarageRequest(code, "Reserve " + code)).getId();
+        garageProvisioningService.provision(garageId, new GarageLayoutRequest(List.of(
+                new GarageLayoutRequest.FloorLayout(1, 2))));
+        
+        user = new User();
+        user.setFirstName("Reserve");
+        user.setLastName("Driver");
+        user.setEmail(UUID.randomUUID() + "@reserve.test");
+        user.setPassword("unused");
+        user = userRepository.save(user);
+        now = LocalDateTime.now();
+    }
+    
+    @Test
+    void overlappingReservationsAreRefused() {
+        reservationService.reserve(user.getId(), garageId,
+                new ReservationRequest(car("A"), 1, 1, now.plusHours(2), now.plusHours(4)));
+        
+        assertThatThrownBy(() -> reservationService.reserve(user.getId(), garageId,
+                new ReservationRequest(car("B"), 1, 1, now.plusHours(3), now.plusHours(5))))
+                .hasMessage("SPOT_RESERVED");
+        
+        // Back to back is fine, end times are exclusive
+        ReservationDTO next = reservationService.reserve(user.getId(), garageId,
+                new ReservationRequest(car("C"), 1, 1, now.plusHours(4), now.plusHours(6)));
+        assertThat(next.getSpotNumber()).isEqualTo(1);
+        
+        // Auto-assigned bookings go around the taken spot until none is left for the window
+        ReservationDTO other = reservationService.reserve(user.getId(), garageId,
+                new ReservationRequest(car("D"), null, null, now.plusHours(3), now.plusHours(5)));
+        assertThat(other.getSpotNumber()).isEqualTo(2);
+        assertThatThrownBy(() -> reservationService.reserve(user.getId(), garageId,
+                new ReservationRequest(car("E"), null, null, now.plusHours(3), now.plusHours(4))))
+                .hasMessage("NO_SPOTS_AVAILABLE");
+    }
+    
+    @Test
+    void checkInBeforeTheEarlyArrivalWindowIsRefused() {
+        Long carId = car("A");
+        ReservationDTO reservation = reservationService.reserve(user.getId(), garageId,
+                new ReservationRequest(carId, 1, 1, now.plusHours(1), now.plusHours(2)));
+        
+        assertThatThrownBy(() -> parkingService.parkCar(user.getId(), garageId,
+                new ParkingRequest(carId, null, null, reservation.getReservationId())))
+                .hasMessage("RESERVATION_NOT_STARTED");
+        assertThat(statusOf(reservation)).isEqualTo(ReservationStatus.BOOKED);
+    }
+    
+    @Test
+    void checkInWithinTheEarlyArrivalWindowParksOnTheReservedSpot() {
+        Long carId = car("A");
+        ReservationDTO reservation = reservationService.reserve(user.getId(), garageId,
+                new ReservationRequest(carId, 1, 2, now.plusMinutes(10), now.plusHours(2)));
+        
+        Long spotId = parkingService.parkCar(user.getId(), garageId,
+                new ParkingRequest(carId, null, null, reservation.getReservationId())).getSpot().getId();
+        
+        assertThat(spotId).isEqualTo(reservation.getSpotId());
+        assertThat(statusOf(reservation)).isEqualTo(ReservationStatus.FULFILLED);
+    }
+    
+    @Test
+    void checkInAfterTheEndIsRefused() {
+        Long carId = car("A");
+        ReservationDTO reservation = reservationService.reserve(user.getId(), garageId,
+                new ReservationRequest(carId, 1, 1, now.plusMinutes(10), now.plusHours(1)));
+        // Windows cannot be booked in the past, so the booking is moved there afterwards
+        jdbcTemplate.update("update reservations set start_time = ?, end_time = ? where id = ?",
+                now.minusHours(2), now.minusHours(1), reservation.getReservationId());
+        
+        assertThatThrownBy(() -> parkingService.parkCar(user.getId(), garageId,
+                new ParkingRequest(carId, null, null, reservation.getReservationId())))
+                .hasMessage("RESERVATION_EXPIRED");
+        assertThat(statusOf(reservation)).isEqualTo(ReservationStatus.BOOKED);
+    }
+    
+    @Test
+    void autoAssignedParkingSkipsASpotReservedSoon() {
+        ReservationDTO reservation = reservationService.reserve(user.getId(), garageId,
+                new ReservationRequest(car("A"), 1, 1, now.plusMinutes(30), now.plusHours(2)));
+        
+        Integer spotNumber = parkingService.parkCar(user.getId(), garageId,
+                new ParkingRequest(car("B"), null, null, null)).getSpot().getSpotNumber();
+        assertThat(spotNumber).isEqualTo(2);
+        
+        // The reserved spot is still free but held for its booking
+        Long late = car("C");
+        assertThatThrownBy(() -> parkingService.parkCar(user.getId(), garageId,
+                new ParkingRequest(late, null, null, null)))
+                .hasMessage("NO_SPOTS_AVAILABLE");
+        assertThatThrownBy(() -> parkingService.parkCar(user.getId(), garageId,
+                new ParkingRequest(late, 1, 1, null)))
+                .hasMessage("SPOT_RESERVED");
+        assertThat(statusOf(reservation)).isEqualTo(ReservationStatus.BOOKED);
+    }
+    
+    private ReservationStatus statusOf(ReservationDTO reservation) {
+        return reservationRepository.findById(reservation.getReservationId()).orElseThrow().getStatus();
+    }
+    
+    private Long car(String suffix) {
+        Car car = new Car();
+        car.setLicensePlate("RS" + user.getId() + suffix);
+        car.setMake("Make");
+        car.setModel("Model");
+        car.setUser(user);
+        return carRepository.save(car).getId();
+    }
+}
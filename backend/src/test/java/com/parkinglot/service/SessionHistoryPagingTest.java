@@ -0,0 +1,153 @@
+package com.parkinglot.service;
+
+import com.parkinglot.dto.GarageLayoutRequest;
+import com.parkinglot.dto.GarageRequest;
+import com.parkinglot.dto.PageResponse;
+import com.parkinglot.dto.ParkingHistoryDTO;
+import com.parkinglot.dto.ParkingRequest;
+import com.parkinglot.model.Car;
+import com.parkinglot.model.User;
+import com.parkinglot.repository.CarRepository;
+import com.parkinglot.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Session history is split between the live table and the archive. Paging through it returns every
+ * closed session exactly once, newest first, even when sessions are archived between two pages.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class SessionHistoryPagingTest {
+    
+    private static final int PAGE_SIZE = 4;
+    
+    @Autowired
+    private ParkingService parkingService;
+    
+    @Autowired
+    private SessionArchiver sessionArchiver;
+    
+    @Autowired
+    private GarageService garageService;
+    
+    @Autowired
+    private GarageProvisioningService garageProvisioningService;
+    
+    @Autowired
+    private UserRepository userRepository;
+    
+    @Autowired
+    private CarRepository carRepository;
+    
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    
+    private Long garageId;
+    private Long userId;
+    private Long carId;
+    
+    @BeforeEach
+    void driver() {
+        String code = "history-" + UUID.randomUUID().toString().substring(0, 8);
+        garageId = garageService.createGarage(new GarageRequest(code, "History " + code)).getId();
+        garageProvisioningService.provision(garageId, new GarageLayoutRequest(List.of(
+                new GarageLayoutRequest.FloorLayout(1, 2))));
+        
+        User user = new User();
+        user.setFirstName("History");
+        user.setLastName("Driver");
+        user.setEmail(UUID.randomUUID() + "@history.test");
+        user.setPassword("unused");
+        userId = userRepository.save(user).getId();
+        
+        Car car = new Car();
+        car.setLicensePlate("HI" + userId);
+        car.setMake("Make");
+        car.setModel("Model");
+        car.setUser(user);
+        carId = carRepository.save(car).getId();
+    }
+    
+    @Test
+    void pagesAcrossLiveAndArchivedSessions() {
+        List<Long> closed = new ArrayList<>(parkAndLeave(5));
+        sessionArchiver.archiveClosedSessions();
+        closed.addAll(parkAndLeave(4));
+        // Still parked, so not part of the history
+        parkingService.parkCar(userId, garageId, new ParkingRequest(carId, null, null, null));
+        
+        assertThat(countRows("parking_session_history")).isEqualTo(5);
+        assertThat(countRows("parking_sessions")).isEqualTo(5);
+        assertThat(readAllPages()).isEqualTo(newestFirst(closed));
+    }
+    
+    @Test
+    void sessionsArchivedBetweenPagesAreNeitherRepeatedNorSkipped() {
+        List<Long> closed = new ArrayList<>(parkAndLeave(3));
+        sessionArchiver.archiveClosedSessions();
+        closed.addAll(parkAndLeave(6));
+        
+        PageResponse<ParkingHistoryDTO> first = parkingService.getSessionHistoryPage(userId, null, PAGE_SIZE);
+        // The rest of the live sessions, including the ones the next page starts with, move to the archive
+        sessionArchiver.archiveClosedSessions();
+        assertThat(countRows("parking_sessions")).isZero();
+        
+        List<Long> seen = new ArrayList<>(ids(first));
+        seen.addAll(readPagesFrom(first.getNextCursor()));
+        assertThat(seen).isEqualTo(newestFirst(closed));
+    }
+    
+    private List<Long> parkAndLeave(int times) {
+        List<Long> sessionIds = new ArrayList<>();
+        for (int i = 0; i < times; i++) {
+            Long sessionId = parkingService.parkCar(userId, garageId, new ParkingRequest(carId, null, null, null))
+                    .getParkingSessionId();
+            parkingService.leaveParkingSpot(userId, sessionId);
+            sessionIds.add(sessionId);
+        }
+        return sessionIds;
+    }
+    
+    private List<Long> readAllPages() {
+        PageResponse<ParkingHistoryDTO> first = parkingService.getSessionHistoryPage(userId, null, PAGE_SIZE);
+        List<Long> seen = new ArrayList<>(ids(first));
+        seen.addAll(readPagesFrom(first.getNextCursor()));
+        return seen;
+    }
+    
+    private List<Long> readPagesFrom(String cursor) {
+        List<Long> seen = new ArrayList<>();
+        while (cursor != null) {
+            PageResponse<ParkingHistoryDTO> page = parkingService.getSessionHistoryPage(userId, cursor, PAGE_SIZE);
+            assertThat(page.getItems()).hasSizeLessThanOrEqualTo(PAGE_SIZE);
+            seen.addAll(ids(page));
+            cursor = page.getNextCursor();
+        }
+        return seen;
+    }
+    
+    private List<Long> ids(PageResponse<ParkingHistoryDTO> page) {
+        return page.getItems().stream().map(ParkingHistoryDTO::getParkingSessionId).toList();
+    }
+    
+    private List<Long> newestFirst(List<Long> sessionIds) {
+        return sessionIds.stream().sorted(Comparator.reverseOrder()).toList();
+    }
+    
+    private int countRows(String table) {
+        return jdbcTemplate.queryForObject(
+                "select count(*) from " + table + " where user_id = ?", Integer.class, userId);
+    }
+}
@@ -0,0 +1,90 @@
+package com.parkinglot.service;
+
+import com.parkinglot.config.TariffProperties;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TariffTest {
+    
+    private static final LocalDateTime MONDAY = LocalDateTime.of(2024, 3, 4, 0, 0);
+    
+    @Test
+    void chargesTheDefaultRatePerStartedMinute() {
+        Tariff tariff = new Tariff(properties(200, 0));
+        
+        assertThat(tariff.price(1, MONDAY.withHour(9), MONDAY.withHour(10))).isEqualTo(200);
+        // 61 seconds are two started minutes: 2 * 200 / 60 cents, rounded up
+        assertThat(tariff.price(1, MONDAY.withHour(9), MONDAY.withHour(9).plusSeconds(61))).isEqualTo(7);
+        assertThat(tariff.price(1, MONDAY.withHour(9), MONDAY.withHour(9))).isZero();
+        assertThat(tariff.price(1, MONDAY.withHour(9), MONDAY.withHour(8))).isZero();
+    }
+    
+    @Test
+    void bandsWrapPastMidnight() {
+        TariffProperties properties = properties(200, 0);
+        properties.getBands().add(band(LocalTime.of(22, 0), LocalTime.of(6, 0), 100));
+        Tariff tariff = new Tariff(properties);
+        
+        assertThat(tariff.price(1, MONDAY.withHour(21), MONDAY.withHour(23))).isEqualTo(200 + 100);
+        assertThat(tariff.price(1, MONDAY.withHour(23), MONDAY.plusDays(1).withHour(7))).isEqualTo(7 * 100 + 200);
+        // The band's end is exclusive: 06:00 is charged at the default rate
+        assertThat(tariff.price(1, MONDAY.withHour(6), MONDAY.withHour(6).withMinute(30))).isEqualTo(100);
+    }
+    
+    @Test
+    void bandEndingWhereItStartsCoversTheWholeDay() {
+        TariffProperties properties = properties(200, 0);
+        properties.getBands().add(band(LocalTime.of(8, 0), LocalTime.of(8, 0), 100));
+        Tariff tariff = new Tariff(properties);
+        
+        assertThat(tariff.price(1, MONDAY.withHour(7), MONDAY.withHour(9))).isEqualTo(2 * 100);
+        assertThat(tariff.price(1, MONDAY, MONDAY.plusDays(1))).isEqualTo(24 * 100);
+        
+        // Later bands still override it
+        properties.getBands().add(band(LocalTime.of(22, 0), LocalTime.of(2, 0), 300));
+        tariff = new Tariff(properties);
+        assertThat(tariff.price(1, MONDAY.withHour(21), MONDAY.plusDays(1).withHour(3))).isEqualTo(2 * 100 + 4 * 300);
+    }
+    
+    @Test
+    void appliesTheFloorPercentage() {
+        TariffProperties properties = properties(200, 0);
+        properties.setFloorRatePercent(Map.of(2, 150, 3, 50));
+        Tariff tariff = new Tariff(properties);
+        
+        assertThat(tariff.price(1, MONDAY.withHour(9), MONDAY.withHour(10))).isEqualTo(200);
+        assertThat(tariff.price(2, MONDAY.withHour(9), MONDAY.withHour(10))).isEqualTo(300);
+        assertThat(tariff.price(3, MONDAY.withHour(9), MONDAY.withHour(10))).isEqualTo(100);
+    }
+    
+    @Test
+    void capsEachCalendarDay() {
+        Tariff tariff = new Tariff(properties(200, 1000));
+        
+        assertThat(tariff.price(1, MONDAY.withHour(9), MONDAY.withHour(12))).isEqualTo(600);
+        assertThat(tariff.price(1, MONDAY.withHour(9), MONDAY.withHour(17))).isEqualTo(1000);
+        // 15 hours on Monday hit the cap, 3 hours on Tuesday do not
+        assertThat(tariff.price(1, MONDAY.withHour(9), MONDAY.plusDays(1).withHour(3))).isEqualTo(1000 + 600);
+        assertThat(tariff.price(1, MONDAY, MONDAY.plusDays(3))).isEqualTo(3 * 1000);
+    }
+    
+    private static TariffProperties properties(long defaultRatePerHourCents, long dailyCapCents) {
+        TariffProperties properties = new TariffProperties();
+        properties.setDefaultRatePerHourCents(defaultRatePerHourCents);
+        properties.setDailyCapCents(dailyCapCents);
+        return properties;
+    }
+    
+    private static TariffProperties.Band band(LocalTime from, LocalTime to, long ratePerHourCents) {
+        TariffProperties.Band band = new TariffProperties.Band();
+        band.setFrom(from);
+        band.setTo(to);
+        band.setRatePerHourCents(ratePerHourCents);
+        return band;
+    }
+}